@@ -7,6 +7,10 @@ import app.audio.Files.ItemEntry;
 import app.audio.Files.Episode;
 import app.audio.Files.Song;
 import app.audio.LibraryEntry;
+import app.audio.SongKeys;
+import app.player.PlaybackScheduler;
+import app.searchBar.SongIndex;
+import app.user.InteractionIndex;
 import app.user.User;
 import app.utils.Enums;
 
@@ -16,23 +20,59 @@ import fileio.input.SongInput;
 import fileio.input.UserInput;
 
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static app.CommandRunner.LIMIT;
 
 /**
  * The type Admin.
  */
-public final class Admin {
+public final class Admin implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int COMPRESSED_LYRICS_SONGS = 100000;
+
     private List<User> users = new ArrayList<>();
+    private Map<String, User> usersByName = new HashMap<>();
     private List<Song> songs = new ArrayList<>();
     private List<Podcast> podcasts = new ArrayList<>();
     private int timestamp = 0;
-    private static final Admin instance = new Admin();
+    private final PlaybackScheduler scheduler = new PlaybackScheduler();
+    private SongIndex songIndex = new SongIndex(false);
+    private final InteractionIndex interactions;
+    private final SongKeys songKeys;
+    private final AtomicLong popularityEpoch;
+    private long usersAdded = 0;
+    private transient Map<String, CommandMetrics> commandMetrics;
+    private static final ThreadLocal<Admin> instance = ThreadLocal.withInitial(Admin::new);
 
     private Admin() {
+        interactions = new InteractionIndex();
+        songKeys = new SongKeys();
+        popularityEpoch = new AtomicLong();
+    }
+
+    private Admin(final Admin engine) {
+        users = engine.users;
+        usersByName = engine.usersByName;
+        songs = engine.songs;
+        podcasts = engine.podcasts;
+        timestamp = engine.timestamp;
+        songIndex = engine.songIndex;
+        interactions = engine.interactions;
+        songKeys = engine.songKeys.view();
+        popularityEpoch = engine.popularityEpoch;
+        usersAdded = engine.usersAdded;
+        commandMetrics = engine.getCommandMetrics();
     }
 
     /**
@@ -42,8 +82,9 @@ public final class Admin {
      */
     public void setUsers(final List<UserInput> userInputList) {
         users = new ArrayList<>();
+        usersByName = new HashMap<>();
         for (UserInput userInput : userInputList) {
-            users.add(new User(userInput.getUsername(), userInput.getAge(), userInput.getCity()));
+            addUser(new User(userInput.getUsername(), userInput.getAge(), userInput.getCity()));
         }
     }
 
@@ -53,12 +94,8 @@ public final class Admin {
      * @param songInputList the song input list
      */
     public void setSongs(final List<SongInput> songInputList) {
-        songs = new ArrayList<>();
-        for (SongInput songInput : songInputList) {
-            songs.add(new Song(songInput.getName(), songInput.getDuration(), songInput.getAlbum(),
-                    songInput.getTags(), songInput.getLyrics(), songInput.getGenre(),
-                    songInput.getReleaseYear(), songInput.getArtist()));
-        }
+        songs = buildSongs(songInputList);
+        songIndex = buildSongIndex(songs);
     }
 
 
@@ -68,7 +105,41 @@ public final class Admin {
      * @param podcastInputList the podcast input list
      */
     public void setPodcasts(final List<PodcastInput> podcastInputList) {
-        podcasts = new ArrayList<>();
+        podcasts = buildPodcasts(podcastInputList);
+    }
+
+    /**
+     * Sets the songs and podcasts of a library built before.
+     * The songs are built again, because their likes change during a replay, while the
+     * podcasts and the postings of the song index are shared with every other replay of
+     * the library.
+     *
+     * @param library the library
+     */
+    public void setLibrary(final SharedLibrary library) {
+        songs = buildSongs(library.getSongs());
+        songIndex = new SongIndex(library.getSongIndex(), songs);
+        podcasts = new ArrayList<>(library.getPodcasts());
+    }
+
+    static List<Song> buildSongs(final List<SongInput> songInputList) {
+        List<Song> built = new ArrayList<>();
+        for (SongInput songInput : songInputList) {
+            built.add(new Song(songInput.getName(), songInput.getDuration(), songInput.getAlbum(),
+                    songInput.getTags(), songInput.getLyrics(), songInput.getGenre(),
+                    songInput.getReleaseYear(), songInput.getArtist()));
+        }
+        return built;
+    }
+
+    static SongIndex buildSongIndex(final List<Song> songList) {
+        SongIndex index = new SongIndex(songList.size() >= COMPRESSED_LYRICS_SONGS);
+        index.addAll(songList);
+        return index;
+    }
+
+    static List<Podcast> buildPodcasts(final List<PodcastInput> podcastInputList) {
+        List<Podcast> built = new ArrayList<>();
         for (PodcastInput podcastInput : podcastInputList) {
             List<Episode> episodes = new ArrayList<>();
             for (EpisodeInput episodeInput : podcastInput.getEpisodes()) {
@@ -76,8 +147,9 @@ public final class Admin {
                         episodeInput.getDuration(),
                         episodeInput.getDescription()));
             }
-            podcasts.add(new Podcast(podcastInput.getName(), podcastInput.getOwner(), episodes));
+            built.add(new Podcast(podcastInput.getName(), podcastInput.getOwner(), episodes));
         }
+        return built;
     }
 
     /**
@@ -89,6 +161,16 @@ public final class Admin {
         return songs;
     }
 
+    /**
+     * Adds songs at the end of the library.
+     *
+     * @param newSongs the songs to be added
+     */
+    public void addSongs(final List<Song> newSongs) {
+        songs.addAll(newSongs);
+        songIndex.addAll(newSongs);
+    }
+
     /**
      * Gets podcasts.
      *
@@ -119,16 +201,16 @@ public final class Admin {
      * @return the user
      */
     public User getUser(final String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return user;
-            }
+        if (username == null) {
+            return null;
         }
-        return null;
+        return usersByName.get(username);
     }
 
     /**
      * Update timestamp.
+     * Only the players that reach the end of their current track are advanced here,
+     * the others catch up when they are used by a command.
      *
      * @param newTimestamp the new timestamp
      */
@@ -139,9 +221,7 @@ public final class Admin {
             return;
         }
 
-        for (User user : users) {
-            user.simulateTime(elapsed);
-        }
+        scheduler.advance(newTimestamp);
     }
 
     /**
@@ -214,6 +294,22 @@ public final class Admin {
         this.timestamp = timestamp;
     }
 
+    public PlaybackScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public SongIndex getSongIndex() {
+        return songIndex;
+    }
+
+    public InteractionIndex getInteractions() {
+        return interactions;
+    }
+
+    public SongKeys getSongKeys() {
+        return songKeys;
+    }
+
     /**
      * Retrieves users of a specified type.
      *
@@ -238,7 +334,30 @@ public final class Admin {
      * @param newUser the User object to be added
      */
     public void addUser(final User newUser) {
+        newUser.setListingOrder(usersAdded++);
         users.add(newUser);
+        usersByName.putIfAbsent(newUser.getUsername(), newUser);
+        popularityChanged();
+    }
+
+    /**
+     * Removes a user from the list and from the username index.
+     * CommandRunner.addUser refuses a name that is taken, but the library may still list
+     * the same name twice, so the next user with that name takes its place in the index.
+     *
+     * @param user the user to be removed
+     */
+    private void removeUser(final User user) {
+        users.remove(user);
+        if (usersByName.remove(user.getUsername(), user)) {
+            for (User other : users) {
+                if (other.getUsername().equals(user.getUsername())) {
+                    usersByName.put(other.getUsername(), other);
+                    break;
+                }
+            }
+        }
+        popularityChanged();
     }
 
     /**
@@ -251,6 +370,7 @@ public final class Admin {
             Song s = songs.get(i);
             if (s.getArtist().equalsIgnoreCase(userName)) {
                 songs.remove(i);
+                songIndex.remove(s);
             }
         }
     }
@@ -267,44 +387,110 @@ public final class Admin {
     public boolean deleteUser(final String username) {
         User crtUser = getUser(username);
 
-        boolean canDelete = true;
-        for (User user : users) {
-            if (user.existsInteraction(crtUser)) {
-                canDelete = false;
-                break;
+        if (!interactions.interactsWith(crtUser)) {
+            Set<Playlist.Key> userPlaylists = new HashSet<>();
+            for (Playlist playlist : crtUser.getPlaylists()) {
+                userPlaylists.add(playlist.getKey());
+            }
+            Set<Integer> albumSongs = new HashSet<>();
+            for (Album album : crtUser.getAlbums()) {
+                for (Song song : album.getSongs()) {
+                    albumSongs.add(songKeys.keyOf(song));
+                }
             }
-        }
-        if (canDelete) {
             for (User user : users) {
-                user.deleteLikeAndFollowFrom(crtUser);
+                user.deleteLikeAndFollowFrom(crtUser, userPlaylists, albumSongs);
             }
             crtUser.cleanBeforeDelete();
             removeSongs(crtUser.getUsername());
-            users.remove(crtUser);
+            removeUser(crtUser);
+            interactions.forget(crtUser);
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Gets the popularity epoch of this engine, which moves on every time the likes of a
+     * song, the followers of a playlist or the playlists listed by getPlaylists change.
+     * Anything ranked by popularity and computed at one epoch is still valid as long as
+     * the epoch stays the same. The epoch belongs to the engine, so the likes of another
+     * replay running in the same process leave it alone.
+     *
+     * @return the popularity epoch
+     */
+    public long getPopularityEpoch() {
+        return popularityEpoch.get();
+    }
+
+    /**
+     * Gets the metrics of the commands run on this engine, by command name, see
+     * CommandRegistry. Shard views record into the metrics of their engine, and another
+     * replay running in the same process keeps metrics of its own.
+     *
+     * @return the command metrics
+     */
+    public Map<String, CommandMetrics> getCommandMetrics() {
+        if (commandMetrics == null) {
+            commandMetrics = new ConcurrentHashMap<>();
+        }
+        return commandMetrics;
+    }
+
+    /**
+     * Moves the popularity epoch on, after a like, a follower count or a listed playlist
+     * changed. Shard views share the epoch of their engine, so this is safe to call from
+     * any shard.
+     */
+    public void popularityChanged() {
+        popularityEpoch.incrementAndGet();
+    }
+
+    /**
+     * Creates a shard view of this Admin, for running the commands of some users on
+     * another thread. The view shares the users, the library, the interaction index and
+     * the popularity epoch, but has its own clock and its own playback scheduler, so
+     * players advanced on one shard never touch the scheduler of another.
+     *
+     * @return the shard view
+     */
+    public Admin shard() {
+        return new Admin(this);
+    }
+
+    /**
+     * Takes back the track boundaries scheduled on a shard view once its commands ran.
+     *
+     * @param shard the shard view
+     */
+    public void join(final Admin shard) {
+        shard.scheduler.transferTo(scheduler);
+    }
+
     /**
      * Reset.
      */
     public void reset() {
         users = new ArrayList<>();
+        usersByName = new HashMap<>();
         songs = new ArrayList<>();
         podcasts = new ArrayList<>();
         timestamp = 0;
+        scheduler.clear();
+        songIndex.clear();
+        interactions.clear();
+        songKeys.clear();
     }
 
     /**
      * Adds a podcast.
-     * Checks if the podcast already exists in the collection and adds it if not.
+     * Checks if a podcast with the same name already exists and adds it if not.
      *
      * @param podcast the Podcast object to be added.
      */
     public void addPodcast(final Podcast podcast) {
-        if (!podcasts.contains(podcast)) {
+        if (podcasts.stream().noneMatch(p -> p.getName().equals(podcast.getName()))) {
             podcasts.add(podcast);
         }
     }
@@ -347,8 +533,30 @@ public final class Admin {
         }
         return topAlbums;
     }
+
+    /**
+     * Gets the instance used by the current thread.
+     * Every thread replays on its own Admin, so independent inputs can be replayed
+     * in parallel, one per thread, without sharing any state.
+     * The instance is bound to the thread instead of being handed down by the caller,
+     * because the users, players and pages reach it through getInstance from deep inside
+     * the commands; passing an engine down would change every one of those signatures
+     * for the same isolation.
+     *
+     * @return the instance
+     */
     public static Admin getInstance() {
-        return instance;
+        return instance.get();
+    }
+
+    /**
+     * Replaces the instance used by the current thread, for example with one read back
+     * from a snapshot.
+     *
+     * @param admin the new instance
+     */
+    public static void restore(final Admin admin) {
+        instance.set(admin);
     }
 
 }
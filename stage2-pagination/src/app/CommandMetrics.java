@@ -0,0 +1,124 @@
+package app;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The type Command metrics.
+ * Records how many times a command ran, how long each run took and how many bytes it
+ * allocated. Latencies go into a log-linear histogram, HDR style: every power of two is
+ * split into the same number of linear buckets, so percentiles keep about three
+ * significant digits at any scale with a fixed amount of memory.
+ */
+public final class CommandMetrics {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS
+            + (Long.SIZE - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+    private static final double PERCENT = 100.0;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String command;
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long allocatedBytes;
+
+    /**
+     * Instantiates new command metrics.
+     *
+     * @param command the name of the command
+     */
+    public CommandMetrics(final String command) {
+        this.command = command;
+    }
+
+    /**
+     * Records one run of the command.
+     *
+     * @param nanos the duration of the run, in nanoseconds
+     * @param bytes the bytes allocated by the run, or a negative value if unknown
+     */
+    public synchronized void record(final long nanos, final long bytes) {
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        if (bytes > 0) {
+            allocatedBytes += bytes;
+        }
+        buckets[bucketOf(Math.max(nanos, 0))]++;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread.
+     *
+     * @return the allocated bytes, or -1 if the JVM can't measure them
+     */
+    public static long currentThreadAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the latency under which the given percentage of the runs finished.
+     *
+     * @param percentile the percentage, between 0 and 100
+     *
+     * @return the latency, in nanoseconds
+     */
+    public synchronized long getPercentile(final double percentile) {
+        long rank = (long) Math.ceil(percentile / PERCENT * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBoundOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - HALF_SUB_BUCKETS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
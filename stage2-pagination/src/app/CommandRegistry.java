@@ -0,0 +1,157 @@
+package app;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.input.CommandInput;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The type Command registry.
+ * Maps every command name to its handler in CommandRunner. Each handler is wrapped so that,
+ * when metrics are enabled with the spotify.metrics system property or
+ * setMetricsEnabled, its runs are timed and counted per command.
+ * Metrics are kept by the Admin of the thread running the command, so inputs replayed in
+ * parallel, each on its own engine, do not mix or clear each other's metrics.
+ */
+public final class CommandRegistry {
+    public static final String METRICS_PROPERTY = "spotify.metrics";
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double MEDIAN = 50.0;
+    private static final double P99 = 99.0;
+
+    private static final Map<String, Function<CommandInput, ObjectNode>> HANDLERS =
+            new HashMap<>();
+    private static volatile boolean metricsEnabled = Boolean.getBoolean(METRICS_PROPERTY);
+
+    static {
+        register("search", CommandRunner::search);
+        register("select", CommandRunner::select);
+        register("load", CommandRunner::load);
+        register("playPause", CommandRunner::playPause);
+        register("repeat", CommandRunner::repeat);
+        register("shuffle", CommandRunner::shuffle);
+        register("forward", CommandRunner::forward);
+        register("backward", CommandRunner::backward);
+        register("like", CommandRunner::like);
+        register("next", CommandRunner::next);
+        register("prev", CommandRunner::prev);
+        register("createPlaylist", CommandRunner::createPlaylist);
+        register("addRemoveInPlaylist", CommandRunner::addRemoveInPlaylist);
+        register("switchVisibility", CommandRunner::switchVisibility);
+        register("showPlaylists", CommandRunner::showPlaylists);
+        register("follow", CommandRunner::follow);
+        register("status", CommandRunner::status);
+        register("showPreferredSongs", CommandRunner::showLikedSongs);
+        register("getPreferredGenre", CommandRunner::getPreferredGenre);
+        register("getTop5Songs", CommandRunner::getTop5Songs);
+        register("getTop5Playlists", CommandRunner::getTop5Playlists);
+        register("switchConnectionStatus", CommandRunner::switchConnectionStatus);
+        register("getOnlineUsers", CommandRunner::getOnlineUsers);
+        register("addUser", CommandRunner::addUser);
+        register("deleteUser", CommandRunner::deleteUser);
+        register("addAlbum", CommandRunner::addAlbum);
+        register("removeAlbum", CommandRunner::removeAlbum);
+        register("showAlbums", CommandRunner::showAlbums);
+        register("printCurrentPage", CommandRunner::printCurrentPage);
+        register("addEvent", CommandRunner::addEvent);
+        register("removeEvent", CommandRunner::removeEvent);
+        register("addMerch", CommandRunner::addMerch);
+        register("getAllUsers", CommandRunner::getAllUsers);
+        register("addPodcast", CommandRunner::addPodcast);
+        register("removePodcast", CommandRunner::removePodcast);
+        register("addAnnouncement", CommandRunner::addAnnouncement);
+        register("removeAnnouncement", CommandRunner::removeAnnouncement);
+        register("showPodcasts", CommandRunner::showPodcasts);
+        register("changePage", CommandRunner::changePage);
+        register("getTop5Albums", CommandRunner::getTop5Albums);
+        register("getTop5Artists", CommandRunner::getTop5Artists);
+    }
+
+    private CommandRegistry() {
+    }
+
+    private static void register(final String command,
+                                 final Function<CommandInput, ObjectNode> handler) {
+        HANDLERS.put(command, input -> {
+            if (!metricsEnabled) {
+                return handler.apply(input);
+            }
+            long bytes = CommandMetrics.currentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            ObjectNode output = handler.apply(input);
+            long nanos = System.nanoTime() - start;
+            long allocated = bytes < 0 ? -1 : CommandMetrics.currentThreadAllocatedBytes() - bytes;
+            Admin.getInstance().getCommandMetrics()
+                    .computeIfAbsent(command, CommandMetrics::new).record(nanos, allocated);
+            return output;
+        });
+    }
+
+    /**
+     * Checks whether a command is known.
+     *
+     * @param command the name of the command
+     *
+     * @return true if the command has a handler
+     */
+    public static boolean contains(final String command) {
+        return HANDLERS.containsKey(command);
+    }
+
+    /**
+     * Runs the handler of a command.
+     *
+     * @param command the command input
+     *
+     * @return the output of the command, or null if the command is unknown
+     */
+    public static ObjectNode dispatch(final CommandInput command) {
+        Function<CommandInput, ObjectNode> handler = HANDLERS.get(command.getCommand());
+        return handler == null ? null : handler.apply(command);
+    }
+
+    public static boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public static void setMetricsEnabled(final boolean enabled) {
+        metricsEnabled = enabled;
+    }
+
+    /**
+     * Prints the metrics of every command that ran on the engine of the current thread,
+     * the slowest in total first.
+     *
+     * @param out the stream to print to
+     */
+    public static void dumpMetrics(final PrintStream out) {
+        List<CommandMetrics> sorted =
+                new ArrayList<>(Admin.getInstance().getCommandMetrics().values());
+        sorted.sort(Comparator.comparingLong(CommandMetrics::getTotalNanos).reversed());
+
+        out.printf("%-24s %10s %12s %10s %10s %10s %12s%n", "command", "count", "total ms",
+                "p50 us", "p99 us", "max us", "bytes/call");
+        for (CommandMetrics metrics : sorted) {
+            out.printf("%-24s %10d %12.3f %10.1f %10.1f %10.1f %12d%n",
+                    metrics.getCommand(), metrics.getCount(),
+                    metrics.getTotalNanos() / NANOS_PER_MICRO / NANOS_PER_MICRO,
+                    metrics.getPercentile(MEDIAN) / NANOS_PER_MICRO,
+                    metrics.getPercentile(P99) / NANOS_PER_MICRO,
+                    metrics.getMaxNanos() / NANOS_PER_MICRO,
+                    metrics.getAllocatedBytes() / metrics.getCount());
+        }
+    }
+
+    /**
+     * Clears the metrics recorded on the engine of the current thread.
+     */
+    public static void resetMetrics() {
+        Admin.getInstance().getCommandMetrics().clear();
+    }
+}
@@ -1,7 +1,6 @@
 package app;
 
 import app.audio.Collections.Album;
-import app.audio.Collections.Playlist;
 import app.audio.Collections.Announcement;
 import app.audio.Collections.PlaylistOutput;
 import app.audio.Collections.Podcast;
@@ -13,6 +12,7 @@ import app.searchBar.Filters;
 import app.user.User;
 import app.utils.Enums;
 import app.utils.Enums.UserPage;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -78,7 +78,7 @@ public final class CommandRunner {
         String message = "Search returned " + results.size() + " results";
 
         objectNode.put("message", message);
-        objectNode.put("results", objectMapper.valueToTree(results));
+        objectNode.set("results", textArray(results));
 
         return objectNode;
     }
@@ -438,7 +438,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(playlists));
+        objectNode.set("result", playlistArray(playlists));
 
         return objectNode;
     }
@@ -484,7 +484,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("stats", objectMapper.valueToTree(stats));
+        objectNode.set("stats", statsNode(stats));
 
         return objectNode;
     }
@@ -504,7 +504,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(songs));
+        objectNode.set("result", textArray(songs));
 
         return objectNode;
     }
@@ -524,7 +524,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(preferredGenre));
+        objectNode.put("result", preferredGenre);
 
         return objectNode;
     }
@@ -542,7 +542,7 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(songs));
+        objectNode.set("result", textArray(songs));
 
         return objectNode;
     }
@@ -560,7 +560,7 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(playlists));
+        objectNode.set("result", textArray(playlists));
 
         return objectNode;
     }
@@ -618,7 +618,7 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", "getOnlineUsers");
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.set("result", objectMapper.valueToTree(onlineUsers));
+        objectNode.set("result", textArray(onlineUsers));
 
         return objectNode;
     }
@@ -700,7 +700,7 @@ public final class CommandRunner {
         }
 
         Album album = new Album(commandInput.getName(), user.getUsername());
-        if (user.getAlbums().contains(album)) {
+        if (user.getAlbums().stream().anyMatch(a -> a.getName().equals(album.getName()))) {
             return createResponse(commandInput, user.getUsername()
                      + " has another album with the same name.");
         }
@@ -714,14 +714,12 @@ public final class CommandRunner {
             }
         }
 
-        List<Song> songs = Admin.getInstance().getSongs();
         ArrayList<Song> s = new ArrayList<>();
 
         for (SongInput songInput : commandInput.getSongs()) {
-            Song song = new Song(songInput);
-            s.add(song);
-            songs.add(song);
+            s.add(new Song(songInput));
         }
+        Admin.getInstance().addSongs(s);
 
         album.setDescription(commandInput.getDescription());
         album.setReleaseYear(commandInput.getReleaseYear());
@@ -847,110 +845,21 @@ public final class CommandRunner {
         }
 
         switch (user.getUserPage()) {
-            case HOME_PAGE -> {
-                List<Song> sortedSongs = new ArrayList<>(user.getLikedSongs());
-                sortedSongs.sort(Comparator.comparingInt(Song::getLikes).reversed());
-
-                List<String> topSongs = new ArrayList<>();
-                int count = 0;
-                for (Song song : sortedSongs) {
-                    if (count >= LIMIT) {
-                        break;
-                    }
-                    if (user.getLikedSongs().contains(song)) {
-                        topSongs.add(song.getName());
-                        count++;
-                    }
-                }
-
-                List<Playlist> sortedPlaylists = new ArrayList<>(Admin.getInstance()
-                        .getPlaylists());
-
-                sortedPlaylists.sort(Comparator.comparingInt(Playlist::getFollowers)
-                        .reversed()
-                        .thenComparing(Playlist::getTimestamp, Comparator.naturalOrder()));
-
-                List<String> topPlaylists = new ArrayList<>();
-                count = 0;
-                for (Playlist playlist : sortedPlaylists) {
-                    if (count >= LIMIT) {
-                        break;
-                    }
-                    if (user.getFollowedPlaylists().contains(playlist)) {
-                        topPlaylists.add(playlist.getName());
-                        count++;
-                    }
-                }
-
-                String s = String.join(", ", topSongs);
-                StringBuilder str = new StringBuilder();
-                str.append("Liked songs:\n\t[");
-                str.append(s).append("]\n\nFollowed playlists:\n\t[");
-                s = String.join(", ", topPlaylists);
-                str.append(s).append("]");
-
-                objectNode.put("message", str.toString());
-                break;
-            }
-            case LIKED_CONTENT_PAGE -> {
-                List<String> likedSongs = user.getLikedSongs().stream()
-                        .map(song -> song.getName() + " - " + song.getArtist())
-                        .collect(Collectors.toList());
-
-                List<String> followedPlaylists = user.getFollowedPlaylists().stream()
-                        .map(playlist -> playlist.getName() + " - " + playlist.getOwner())
-                        .collect(Collectors.toList());
-
-                String s = String.join(", ", likedSongs);
-                StringBuilder str = new StringBuilder();
-                str.append("Liked songs:\n\t[");
-                str.append(s).append("]\n\nFollowed playlists:\n\t[");
-                s = String.join(", ", followedPlaylists);
-                str.append(s).append("]");
-
-                objectNode.put("message", str.toString());
-                break;
-            }
+            case HOME_PAGE -> objectNode.put("message", user.getHomePage());
+            case LIKED_CONTENT_PAGE -> objectNode.put("message", user.getLikedContentPage());
             case ARTIST_PAGE -> {
                 User artist = user;
                 if (user.getOwnerPage() != null) {
                     artist = Admin.getInstance().getUser(user.getOwnerPage());
                 }
-                List<String> info = artist.getAlbumsName();
-
-                String s = String.join(", ", info);
-                StringBuilder str = new StringBuilder();
-                str.append("Albums:\n\t[");
-                str.append(s).append("]\n\nMerch:\n\t[");
-                info = artist.getMerchInfo();
-                s = String.join(", ", info);
-                str.append(s).append("]\n\nEvents:\n\t[");
-                info = artist.getEventsInfo();
-                s = String.join(", ", info);
-                str.append(s).append("]");
-
-                objectNode.put("message", str.toString());
-                break;
+                objectNode.put("message", artist.getArtistPage());
             }
             case HOST_PAGE -> {
                 User host = user;
-
                 if (user.getOwnerPage() != null) {
                     host = Admin.getInstance().getUser(user.getOwnerPage());
                 }
-
-                List<String> info = host.getPodcastsInfo();
-
-                String s = String.join(", ", info);
-                StringBuilder str = new StringBuilder();
-                str.append("Podcasts:\n\t[");
-                str.append(s).append("]\n\nAnnouncements:\n\t[");
-                info = host.getAnnouncementsInfo();
-                s = String.join(", ", info);
-                str.append(s).append("\n]");
-
-                objectNode.put("message", str.toString());
-                break;
+                objectNode.put("message", host.getHostPage());
             }
             default -> { }
         }
@@ -1101,7 +1010,7 @@ public final class CommandRunner {
             results.add(user.getUsername());
         }
 
-        objectNode.put("result", objectMapper.valueToTree(results));
+        objectNode.set("result", textArray(results));
         return objectNode;
     }
 
@@ -1288,9 +1197,65 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.set("result", objectMapper.valueToTree(topArtists));
+        objectNode.set("result", textArray(topArtists));
 
         return objectNode;
     }
 
+    /**
+     * Builds an array of strings directly as a node tree, without going through the
+     * serializer like valueToTree does.
+     *
+     * @param values the strings
+     *
+     * @return the array node, or a null node if there are no values
+     */
+    private static JsonNode textArray(final List<String> values) {
+        if (values == null) {
+            return objectMapper.nullNode();
+        }
+        ArrayNode arrayNode = objectMapper.createArrayNode();
+        for (String value : values) {
+            arrayNode.add(value);
+        }
+        return arrayNode;
+    }
+
+    /**
+     * Builds the playlists shown to a user, with the same fields, in the same order,
+     * as the bean serialization of PlaylistOutput.
+     *
+     * @param playlists the playlists
+     *
+     * @return the array node
+     */
+    private static ArrayNode playlistArray(final List<PlaylistOutput> playlists) {
+        ArrayNode arrayNode = objectMapper.createArrayNode();
+        for (PlaylistOutput playlist : playlists) {
+            ObjectNode playlistNode = arrayNode.addObject();
+            playlistNode.put("name", playlist.getName());
+            playlistNode.set("songs", textArray(playlist.getSongs()));
+            playlistNode.put("visibility", playlist.getVisibility());
+            playlistNode.put("followers", playlist.getFollowers());
+        }
+        return arrayNode;
+    }
+
+    /**
+     * Builds the player stats of a user, with the same fields, in the same order,
+     * as the bean serialization of PlayerStats.
+     *
+     * @param stats the player stats
+     *
+     * @return the object node
+     */
+    private static ObjectNode statsNode(final PlayerStats stats) {
+        ObjectNode statsNode = objectMapper.createObjectNode();
+        statsNode.put("name", stats.getName());
+        statsNode.put("remainedTime", stats.getRemainedTime());
+        statsNode.put("repeat", stats.getRepeat());
+        statsNode.put("shuffle", stats.isShuffle());
+        statsNode.put("paused", stats.isPaused());
+        return statsNode;
+    }
 }
@@ -0,0 +1,36 @@
+package app;
+
+import app.audio.Collections.Podcast;
+import app.searchBar.SongIndex;
+import fileio.input.LibraryInput;
+import fileio.input.SongInput;
+import fileio.input.UserInput;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The type Shared library.
+ * The parts of a library that are built once and used by every replay of it: the parsed
+ * users and songs, the podcasts, which no command changes, and the postings of the song
+ * index. Admin.setLibrary builds the songs of a replay from it and shares the rest.
+ */
+@Getter
+public final class SharedLibrary {
+    private final List<UserInput> users;
+    private final List<SongInput> songs;
+    private final List<Podcast> podcasts;
+    private final SongIndex songIndex;
+
+    /**
+     * Instantiates a new Shared library.
+     *
+     * @param library the parsed library, not changed afterwards
+     */
+    public SharedLibrary(final LibraryInput library) {
+        users = library.getUsers();
+        songs = library.getSongs();
+        podcasts = List.copyOf(Admin.buildPodcasts(library.getPodcasts()));
+        songIndex = Admin.buildSongIndex(Admin.buildSongs(songs));
+    }
+}
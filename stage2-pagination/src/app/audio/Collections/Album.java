@@ -4,9 +4,9 @@ import app.audio.Files.AudioFile;
 import app.audio.Files.Song;
 
 import java.util.List;
-import java.util.Objects;
 
 public final class Album extends AudioCollection {
+    private static final long serialVersionUID = 1L;
 
     private String releaseYear;
     private String description;
@@ -62,20 +62,4 @@ public final class Album extends AudioCollection {
     public int getNumberOfTracks() {
         return songs.size();
     }
-
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
-        }
-        if (!(object instanceof Album album)) {
-            return false;
-        }
-        return Objects.equals(getName(), album.getName());
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(getName());
-    }
 }
@@ -1,6 +1,9 @@
 package app.audio.Collections;
 
-public class Announcement {
+import java.io.Serializable;
+
+public class Announcement implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private String name;
     private String description;
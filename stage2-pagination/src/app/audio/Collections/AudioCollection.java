@@ -9,6 +9,8 @@ import lombok.Getter;
  */
 @Getter
 public abstract class AudioCollection extends LibraryEntry {
+    private static final long serialVersionUID = 1L;
+
     private final String owner;
 
     /**
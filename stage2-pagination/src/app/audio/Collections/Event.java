@@ -1,8 +1,11 @@
 package app.audio.Collections;
 
+import java.io.Serializable;
 import java.util.Objects;
 
-public class Event {
+public class Event implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private String description;
     private String date;
@@ -1,8 +1,11 @@
 package app.audio.Collections;
 
+import java.io.Serializable;
 import java.util.Objects;
 
-public class Merch {
+public class Merch implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String name;
     private String description;
     private Integer price;
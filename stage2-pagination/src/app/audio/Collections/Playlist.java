@@ -1,19 +1,28 @@
 package app.audio.Collections;
 
+import app.Admin;
 import app.audio.Files.AudioFile;
 import app.audio.Files.Song;
+import app.audio.SongKeys;
 import app.utils.Enums;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Objects;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * The type Playlist.
  */
 @Getter
 public final class Playlist extends AudioCollection {
+    private static final long serialVersionUID = 1L;
+
     private final ArrayList<Song> songs;
+    @Getter(AccessLevel.NONE)
+    private final Set<Integer> songKeys;
     private Enums.Visibility visibility;
     private Integer followers;
     private int timestamp;
@@ -38,20 +47,42 @@ public final class Playlist extends AudioCollection {
     public Playlist(final String name, final String owner, final int timestamp) {
         super(name, owner);
         this.songs = new ArrayList<>();
+        this.songKeys = new HashSet<>();
         this.visibility = Enums.Visibility.PUBLIC;
         this.followers = 0;
         this.timestamp = timestamp;
     }
 
+    /**
+     * The key a playlist is followed by: the playlist of an owner with a name.
+     *
+     * @param owner the owner
+     * @param name  the name
+     */
+    public record Key(String owner, String name) implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Gets the key the playlist is followed by.
+     *
+     * @return the key
+     */
+    public Key getKey() {
+        return new Key(getOwner(), getName());
+    }
+
     /**
      * Contains song boolean.
+     * Songs are told apart by name: the playlist holds at most one song of each name. They
+     * are kept by their key, see SongKeys, which tells songs apart the same way.
      *
      * @param song the song
      *
      * @return the boolean
      */
     public boolean containsSong(final Song song) {
-        return songs.contains(song);
+        return songKeys.contains(Admin.getInstance().getSongKeys().keyOf(song));
     }
 
     /**
@@ -61,15 +92,28 @@ public final class Playlist extends AudioCollection {
      */
     public void addSong(final Song song) {
         songs.add(song);
+        songKeys.add(Admin.getInstance().getSongKeys().keyOf(song));
     }
 
     /**
      * Remove song.
      *
      * @param song the song
+     *
+     * @return the song removed, the one with the same name, or null if there was none
      */
-    public void removeSong(final Song song) {
-        songs.remove(song);
+    public Song removeSong(final Song song) {
+        SongKeys keys = Admin.getInstance().getSongKeys();
+        int key = keys.keyOf(song);
+        if (!songKeys.remove(key)) {
+            return null;
+        }
+        for (int i = 0; i < songs.size(); i++) {
+            if (keys.keyOf(songs.get(i)) == key) {
+                return songs.remove(i);
+            }
+        }
+        return null;
     }
 
     /**
@@ -88,6 +132,7 @@ public final class Playlist extends AudioCollection {
      */
     public void increaseFollowers() {
         followers++;
+        Admin.getInstance().popularityChanged();
     }
 
     /**
@@ -95,6 +140,7 @@ public final class Playlist extends AudioCollection {
      */
     public void decreaseFollowers() {
         followers--;
+        Admin.getInstance().popularityChanged();
     }
 
     @Override
@@ -128,21 +174,4 @@ public final class Playlist extends AudioCollection {
             return count == Integer.parseInt(query);
         }
     }
-
-    @Override
-    public boolean equals(final Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        Playlist playlist = (Playlist) o;
-        return getName().equals(playlist.getName()) && getOwner().equals(playlist.getOwner());
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(getName());
-    }
 }
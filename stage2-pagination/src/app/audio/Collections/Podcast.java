@@ -5,9 +5,10 @@ import app.audio.Files.Episode;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 public final class Podcast extends AudioCollection {
+    private static final long serialVersionUID = 1L;
+
     private final List<Episode> episodes;
 
     public Podcast(final String name, final String owner, final List<Episode> episodes) {
@@ -42,20 +43,4 @@ public final class Podcast extends AudioCollection {
     public AudioFile getTrackByIndex(final int index) {
         return episodes.get(index);
     }
-
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
-        }
-        if (!(object instanceof Podcast podcast)) {
-            return false;
-        }
-        return Objects.equals(getName(), podcast.getName());
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(getName());
-    }
 }
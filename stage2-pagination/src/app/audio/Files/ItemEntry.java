@@ -3,6 +3,7 @@ package app.audio.Files;
 import app.audio.LibraryEntry;
 
 public class ItemEntry extends LibraryEntry {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Instantiates a new Library entry.
@@ -1,17 +1,19 @@
 package app.audio.Files;
 
+import app.Admin;
 import fileio.input.SongInput;
 import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * The type Song.
  */
 @Getter
 public final class Song extends AudioFile {
+    private static final long serialVersionUID = 1L;
+
     private final String album;
     private final ArrayList<String> tags;
     private final String lyrics;
@@ -93,24 +95,8 @@ public final class Song extends AudioFile {
 
     @Override
     public boolean matchesReleaseYear(final String releaseYearFilter) {
-        return filterByYear(this.getReleaseYear(), releaseYearFilter);
-    }
-
-    @Override
-    public boolean equals(final Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        Song song = (Song) o;
-        return getName().equals(song.getName());
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(getName());
+        return this.getReleaseYear() != null
+                && filterByYear(this.getReleaseYear(), releaseYearFilter);
     }
 
     private static boolean filterByYear(final int year, final String query) {
@@ -126,15 +112,16 @@ public final class Song extends AudioFile {
     /**
      * Like.
      */
-    public void like() {
+    public synchronized void like() {
         likes++;
+        Admin.getInstance().popularityChanged();
     }
 
     /**
      * Dislike.
      */
-    public void dislike() {
+    public synchronized void dislike() {
         likes--;
+        Admin.getInstance().popularityChanged();
     }
-
 }
@@ -2,13 +2,20 @@ package app.audio;
 
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The type Library entry.
  */
 @Getter
-public abstract class LibraryEntry {
+public abstract class LibraryEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id;
     private final String name;
 
     /**
@@ -17,9 +24,29 @@ public abstract class LibraryEntry {
      * @param name the name
      */
     public LibraryEntry(final String name) {
+        this.id = NEXT_ID.getAndIncrement();
         this.name = name;
     }
 
+    /**
+     * Entries are only equal to themselves: songs, episodes and collections are created
+     * once and the same object is shared by every list and map that refers to them, so
+     * lookups never need to compare names. The id assigned at creation is the hash code.
+     *
+     * @param object the other object
+     *
+     * @return the boolean
+     */
+    @Override
+    public final boolean equals(final Object object) {
+        return this == object;
+    }
+
+    @Override
+    public final int hashCode() {
+        return id;
+    }
+
     /**
      * Matches name boolean.
      *
@@ -0,0 +1,85 @@
+package app.audio;
+
+import app.audio.Files.Song;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Song keys.
+ * Numbers the distinct song names of an engine, so that the maps and sets telling songs
+ * apart by name are keyed by a small int instead of by the name. A song is matched by name
+ * once, its key is then read back from a table indexed by the id the song got at creation,
+ * see LibraryEntry.getId.
+ * The names are shared by the shard views of an engine while every view keeps a table of
+ * its own, so the shards can look keys up at the same time.
+ */
+public final class SongKeys implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Integer> keys;
+    private final AtomicInteger nextKey;
+    private transient Song[] cachedSongs;
+    private transient int[] cachedKeys;
+
+    /**
+     * Instantiates new Song keys.
+     */
+    public SongKeys() {
+        this(new ConcurrentHashMap<>(), new AtomicInteger());
+    }
+
+    private SongKeys(final Map<String, Integer> keys, final AtomicInteger nextKey) {
+        this.keys = keys;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * Gets keys sharing the names of these, for a shard view of the engine.
+     *
+     * @return the keys of the view
+     */
+    public SongKeys view() {
+        return new SongKeys(keys, nextKey);
+    }
+
+    /**
+     * Gets the key of a song. Songs with the same name have the same key.
+     *
+     * @param song the song
+     *
+     * @return the key
+     */
+    public int keyOf(final Song song) {
+        if (cachedSongs == null) {
+            cachedSongs = new Song[0];
+            cachedKeys = new int[0];
+        }
+        int slot = song.getId();
+        if (slot < cachedSongs.length && cachedSongs[slot] == song) {
+            return cachedKeys[slot];
+        }
+        int key = keys.computeIfAbsent(song.getName(), name -> nextKey.getAndIncrement());
+        if (slot >= cachedSongs.length) {
+            int capacity = Math.max(slot + 1, cachedSongs.length * 2);
+            cachedSongs = Arrays.copyOf(cachedSongs, capacity);
+            cachedKeys = Arrays.copyOf(cachedKeys, capacity);
+        }
+        cachedSongs[slot] = song;
+        cachedKeys[slot] = key;
+        return key;
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        keys.clear();
+        nextKey.set(0);
+        cachedSongs = null;
+        cachedKeys = null;
+    }
+}
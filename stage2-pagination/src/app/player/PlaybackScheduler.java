@@ -0,0 +1,65 @@
+package app.player;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * The type Playback scheduler.
+ * Keeps the playing players ordered by the timestamp at which their current track ends,
+ * so that advancing the time only touches the players that reach a track boundary.
+ */
+public final class PlaybackScheduler implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final Comparator<Boundary> BY_TIMESTAMP =
+            (Comparator<Boundary> & Serializable) (first, second)
+                    -> Integer.compare(first.timestamp(), second.timestamp());
+
+    private final PriorityQueue<Boundary> boundaries = new PriorityQueue<>(BY_TIMESTAMP);
+
+    private record Boundary(int timestamp, Player player) implements Serializable {
+    }
+
+    /**
+     * Schedules a player to be advanced when its current track ends.
+     *
+     * @param player    the player
+     * @param timestamp the timestamp at which the current track ends
+     */
+    public void schedule(final Player player, final int timestamp) {
+        boundaries.add(new Boundary(timestamp, player));
+    }
+
+    /**
+     * Advances every player whose track boundary is reached until the given timestamp.
+     * Entries left behind by players that were paused or rescheduled meanwhile are dropped.
+     *
+     * @param timestamp the new timestamp
+     */
+    public void advance(final int timestamp) {
+        while (!boundaries.isEmpty() && boundaries.peek().timestamp() <= timestamp) {
+            Boundary boundary = boundaries.poll();
+            if (boundary.player().isScheduledAt(boundary.timestamp())) {
+                boundary.player().syncTo(timestamp);
+            }
+        }
+    }
+
+    /**
+     * Moves every scheduled boundary to another scheduler.
+     *
+     * @param other the scheduler receiving the boundaries
+     */
+    public void transferTo(final PlaybackScheduler other) {
+        other.boundaries.addAll(boundaries);
+        boundaries.clear();
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        boundaries.clear();
+    }
+}
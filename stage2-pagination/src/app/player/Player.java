@@ -1,23 +1,25 @@
 package app.player;
 
 
-import app.audio.Collections.Album;
+import app.Admin;
 import app.audio.Collections.AudioCollection;
-import app.audio.Collections.Podcast;
 import app.audio.Files.AudioFile;
-import app.audio.Files.Song;
 import app.audio.LibraryEntry;
 import app.user.User;
 import app.utils.Enums;
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * The type Player.
  */
-public final class Player {
+public final class Player implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final User user;
     private Enums.RepeatMode repeatMode;
     private boolean shuffle;
     private boolean paused;
@@ -26,20 +28,70 @@ public final class Player {
     private String type;
     private final int skipTime = 90;
     private ArrayList<PodcastBookmark> bookmarks = new ArrayList<>();
+    private int lastUpdate;
+    private int scheduledBoundary = -1;
 
 
     /**
      * Instantiates a new Player.
+     *
+     * @param user the user the player belongs to
      */
-    public Player() {
+    public Player(final User user) {
+        this.user = user;
         this.repeatMode = Enums.RepeatMode.NO_REPEAT;
         this.paused = true;
+        this.lastUpdate = Admin.getInstance().getTimestamp();
+    }
+
+    /**
+     * Brings the player up to the given timestamp and schedules its next track boundary.
+     *
+     * @param timestamp the timestamp
+     */
+    public void syncTo(final int timestamp) {
+        int elapsed = timestamp - lastUpdate;
+        if (elapsed <= 0) {
+            return;
+        }
+
+        lastUpdate = timestamp;
+        simulatePlayer(elapsed);
+        scheduleNextBoundary();
+    }
+
+    private void catchUp() {
+        syncTo(Admin.getInstance().getTimestamp());
+    }
+
+    private void scheduleNextBoundary() {
+        if (source == null || paused) {
+            scheduledBoundary = -1;
+            return;
+        }
+
+        int boundary = lastUpdate + source.getDuration();
+        if (boundary != scheduledBoundary) {
+            scheduledBoundary = boundary;
+            Admin.getInstance().getScheduler().schedule(this, boundary);
+        }
+    }
+
+    /**
+     * Checks if the player is still waiting for the track boundary at the given timestamp.
+     *
+     * @param timestamp the timestamp
+     * @return true if the boundary is the one currently scheduled, false otherwise
+     */
+    public boolean isScheduledAt(final int timestamp) {
+        return scheduledBoundary == timestamp;
     }
 
     /**
      * Stop.
      */
     public void stop() {
+        catchUp();
         if ("podcast".equals(this.type)) {
             bookmarkPodcast();
         }
@@ -48,6 +100,8 @@ public final class Player {
         paused = true;
         source = null;
         shuffle = false;
+        scheduleNextBoundary();
+        Admin.getInstance().getInteractions().playing(user, null);
     }
 
     private void bookmarkPodcast() {
@@ -62,6 +116,7 @@ public final class Player {
     }
 
     public PlayerSource getSource() {
+        catchUp();
         return source;
     }
 
@@ -107,6 +162,7 @@ public final class Player {
      * @param sourceType the sourceType
      */
     public void setSource(final LibraryEntry entry, final String sourceType) {
+        catchUp();
         if ("podcast".equals(this.type)) {
             bookmarkPodcast();
         }
@@ -116,13 +172,17 @@ public final class Player {
         this.repeatMode = Enums.RepeatMode.NO_REPEAT;
         this.shuffle = false;
         this.paused = true;
+        scheduleNextBoundary();
+        Admin.getInstance().getInteractions().playing(user, source);
     }
 
     /**
      * Pause.
      */
     public void pause() {
+        catchUp();
         paused = !paused;
+        scheduleNextBoundary();
     }
 
     /**
@@ -131,6 +191,7 @@ public final class Player {
      * @param seed the seed
      */
     public void shuffle(final Integer seed) {
+        catchUp();
         if (seed != null) {
             source.generateShuffleOrder(seed);
         }
@@ -150,6 +211,7 @@ public final class Player {
      * @return the enums . repeat mode
      */
     public Enums.RepeatMode repeat() {
+        catchUp();
         if (repeatMode == Enums.RepeatMode.NO_REPEAT) {
             if (source.getType() == Enums.PlayerSourceType.LIBRARY) {
                 repeatMode = Enums.RepeatMode.REPEAT_ONCE;
@@ -181,10 +243,14 @@ public final class Player {
         if (source != null && !paused) {
             while (elapsedTime >= source.getDuration()) {
                 elapsedTime -= source.getDuration();
-                next();
+                nextAudioFile();
                 if (paused) {
                     break;
                 }
+                if (isLooping()) {
+                    source.skipInLoop(elapsedTime, repeatMode, shuffle);
+                    return;
+                }
             }
             if (!paused) {
                 source.skip(-elapsedTime);
@@ -192,10 +258,22 @@ public final class Player {
         }
     }
 
+    private boolean isLooping() {
+        return repeatMode == Enums.RepeatMode.REPEAT_ALL
+                || repeatMode == Enums.RepeatMode.REPEAT_INFINITE
+                || repeatMode == Enums.RepeatMode.REPEAT_CURRENT_SONG;
+    }
+
     /**
      * Next.
      */
     public void next() {
+        catchUp();
+        nextAudioFile();
+        scheduleNextBoundary();
+    }
+
+    private void nextAudioFile() {
         paused = source.setNextAudioFile(repeatMode, shuffle);
         if (repeatMode == Enums.RepeatMode.REPEAT_ONCE) {
             repeatMode = Enums.RepeatMode.NO_REPEAT;
@@ -210,19 +288,23 @@ public final class Player {
      * Prev.
      */
     public void prev() {
+        catchUp();
         source.setPrevAudioFile(shuffle);
         paused = false;
+        scheduleNextBoundary();
     }
 
     private void skip(final int duration) {
         source.skip(duration);
         paused = false;
+        scheduleNextBoundary();
     }
 
     /**
      * Skip next.
      */
     public void skipNext() {
+        catchUp();
         if (source.getType() == Enums.PlayerSourceType.PODCAST) {
             skip(-skipTime);
         }
@@ -232,6 +314,7 @@ public final class Player {
      * Skip prev.
      */
     public void skipPrev() {
+        catchUp();
         if (source.getType() == Enums.PlayerSourceType.PODCAST) {
             skip(skipTime);
         }
@@ -243,6 +326,7 @@ public final class Player {
      * @return the current audio file
      */
     public AudioFile getCurrentAudioFile() {
+        catchUp();
         if (source == null) {
             return null;
         }
@@ -255,6 +339,7 @@ public final class Player {
      * @return the paused
      */
     public boolean getPaused() {
+        catchUp();
         return paused;
     }
 
@@ -264,6 +349,7 @@ public final class Player {
      * @return the shuffle
      */
     public boolean getShuffle() {
+        catchUp();
         return shuffle;
     }
 
@@ -273,6 +359,7 @@ public final class Player {
      * @return the stats
      */
     public PlayerStats getStats() {
+        catchUp();
         String filename = "";
         int duration = 0;
 
@@ -287,87 +374,9 @@ public final class Player {
     }
 
     public void setPaused(final boolean state) {
+        catchUp();
         this.paused = state;
-    }
-
-    /**
-     * Checks if the current audio source is playing content from the specified podcast.
-     *
-     * @param podcast the podcast
-     * @return true if the current audio source is playing from the given podcast, false otherwise
-     */
-    public boolean playFrom(final Podcast podcast) {
-        if (source == null) {
-            return false;
-        }
-        if (source.getAudioCollection() != null) {
-            if (source.getType() == Enums.PlayerSourceType.PODCAST) {
-                return podcast.getName().equals(source.getAudioCollection().getName());
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Checks if the current audio source is playing content from the specified album.
-     *
-     * @param album the album
-     * @return true if the current audio source is playing from the given album, false otherwise
-     */
-    public boolean playFrom(final Album album) {
-        if (source == null) {
-            return false;
-        }
-        AudioFile audio = source.getAudioFile();
-        if (audio != null && album.getSongs().contains((Song) audio)) {
-            return true;
-        }
-        if (source.getAudioCollection() != null) {
-            if (source.getType() == Enums.PlayerSourceType.ALBUM) {
-                return album.getName().equals(source.getAudioCollection().getName());
-            } else if (source.getType() == Enums.PlayerSourceType.PLAYLIST) {
-                for (int i = 0; i < source.getAudioCollection().getNumberOfTracks(); i++) {
-                    if (album.getSongs().contains(
-                            (Song) source.getAudioCollection().getTrackByIndex(i))) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Checks if the current audio source is playing content associated with the specified user.
-     *
-     * @param user the user
-     * @return true if the current audio source is playing content associated with the given user,
-     *         false otherwise
-     */
-    public boolean playFrom(final User user) {
-        if (source == null) {
-            return false;
-        }
-        if (source.getAudioCollection() != null) {
-            if (source.getType() != Enums.PlayerSourceType.PLAYLIST) {
-                return source.getAudioCollection().matchesOwner(user.getUsername());
-            } else {
-                if (source.getAudioCollection().matchesOwner(user.getUsername())) {
-                    return true;
-                } else {
-                    for (int i = 0; i < source.getAudioCollection().getNumberOfTracks(); i++) {
-                        if (source.getAudioCollection().getTrackByIndex(i).matchesArtist(
-                                user.getUsername())) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        if (source.getAudioFile() != null) {
-            return source.getAudioFile().matchesArtist(user.getUsername());
-        }
-        return false;
+        scheduleNextBoundary();
     }
 
 }
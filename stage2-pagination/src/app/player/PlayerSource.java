@@ -5,6 +5,7 @@ import app.audio.Files.AudioFile;
 import app.utils.Enums;
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -13,7 +14,9 @@ import java.util.Random;
 /**
  * The type Player source.
  */
-public class PlayerSource {
+public class PlayerSource implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Getter
     private Enums.PlayerSourceType type;
     @Getter
@@ -25,6 +28,8 @@ public class PlayerSource {
     private int indexShuffled;
     private int remainedDuration;
     private final List<Integer> indices = new ArrayList<>();
+    private int[] loopEnds;
+    private boolean loopEndsShuffled;
 
     /**
      * Instantiates a new Player source.
@@ -140,6 +145,76 @@ public class PlayerSource {
         return isPaused;
     }
 
+    /**
+     * Skips the given time while the source plays in a loop, starting from the beginning
+     * of the current audio file. Instead of moving track by track, whole loops are dropped
+     * and the landing track is found by binary search over the loop's cumulative durations.
+     *
+     * @param elapsed    the time to be skipped
+     * @param repeatMode the repeat mode
+     * @param shuffle    the shuffle
+     */
+    public void skipInLoop(final int elapsed, final Enums.RepeatMode repeatMode,
+                           final boolean shuffle) {
+        if (type == Enums.PlayerSourceType.LIBRARY
+                || repeatMode != Enums.RepeatMode.REPEAT_ALL) {
+            int duration = audioFile.getDuration();
+            remainedDuration = duration == 0 ? 0 : duration - elapsed % duration;
+            return;
+        }
+
+        int[] ends = getLoopEnds(shuffle);
+        int loopDuration = ends[ends.length - 1];
+        int position = shuffle ? indexShuffled : index;
+        if (loopDuration == 0) {
+            remainedDuration = 0;
+            return;
+        }
+
+        int start = position == 0 ? 0 : ends[position - 1];
+        int offset = (int) (((long) start + elapsed) % loopDuration);
+
+        int low = 0;
+        int high = ends.length - 1;
+        while (low < high) {
+            int middle = (low + high) / 2;
+            if (ends[middle] > offset) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        if (shuffle) {
+            indexShuffled = low;
+            index = indices.get(low);
+        } else {
+            index = low;
+        }
+        updateAudioFile();
+        remainedDuration = ends[low] - offset;
+    }
+
+    private int[] getLoopEnds(final boolean shuffle) {
+        if (loopEnds != null && loopEndsShuffled == shuffle
+                && type != Enums.PlayerSourceType.PLAYLIST) {
+            return loopEnds;
+        }
+
+        int tracks = shuffle ? indices.size() : audioCollection.getNumberOfTracks();
+        int[] ends = new int[tracks];
+        int total = 0;
+        for (int i = 0; i < tracks; i++) {
+            int track = shuffle ? indices.get(i) : i;
+            total += audioCollection.getTrackByIndex(track).getDuration();
+            ends[i] = total;
+        }
+
+        loopEnds = ends;
+        loopEndsShuffled = shuffle;
+        return ends;
+    }
+
     /**
      * Sets prev audio file.
      *
@@ -177,6 +252,7 @@ public class PlayerSource {
      */
     public void generateShuffleOrder(final Integer seed) {
         indices.clear();
+        loopEnds = null;
         Random random = new Random(seed);
         for (int i = 0; i < audioCollection.getNumberOfTracks(); i++) {
             indices.add(i);
@@ -0,0 +1,264 @@
+package app.searchBar;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type Lyrics index.
+ * Maps every trigram of the lower-cased lyrics to the ids of the songs containing it.
+ * A lyrics query is narrowed to the songs containing all of its trigrams, which are then
+ * checked with the exact substring match.
+ * In compressed mode the ids are stored as variable-length deltas, which keeps the index
+ * of a large library at roughly a byte per posting instead of four.
+ */
+final class LyricsIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int GRAM = 3;
+    private static final int CHAR_BITS = 16;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_MORE = 0x80;
+
+    private final boolean compressed;
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+
+    /**
+     * Instantiates a new Lyrics index.
+     *
+     * @param compressed whether the posting lists are stored compressed
+     */
+    LyricsIndex(final boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Checks whether the posting lists are stored compressed.
+     *
+     * @return true if they are compressed
+     */
+    boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Adds the lyrics of a song. Ids must be added in increasing order.
+     *
+     * @param lyrics the lyrics
+     * @param id     the id of the song
+     */
+    void add(final String lyrics, final int id) {
+        String lower = lyrics.toLowerCase();
+        if (lower.length() < GRAM) {
+            return;
+        }
+
+        long[] keys = new long[lower.length() - GRAM + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = trigram(lower, i);
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                trigrams.computeIfAbsent(keys[i], key -> compressed
+                        ? new PackedPostings() : new ArrayPostings()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Finds the songs whose lyrics contain every trigram of the query.
+     *
+     * @param query   the lower-cased query
+     * @param maxSize the number of candidates above which the index is not worth using
+     *
+     * @return the sorted candidate ids, or null if the index can't narrow the search
+     */
+    int[] candidates(final String query, final int maxSize) {
+        if (query.length() < GRAM) {
+            return null;
+        }
+
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            Postings postings = trigrams.get(trigram(query, i));
+            if (postings == null) {
+                return new int[0];
+            }
+            if (!lists.contains(postings)) {
+                lists.add(postings);
+            }
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+        if (lists.get(0).size() >= maxSize) {
+            return null;
+        }
+
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retain(result);
+        }
+        return result;
+    }
+
+    /**
+     * Clear.
+     */
+    void clear() {
+        trigrams.clear();
+    }
+
+    private static long trigram(final String text, final int start) {
+        long key = 0;
+        for (int i = start; i < start + GRAM; i++) {
+            key = (key << CHAR_BITS) | text.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * A sorted list of song ids.
+     */
+    private interface Postings extends Serializable {
+        /**
+         * Appends an id greater than all the ids already stored.
+         *
+         * @param id the id
+         */
+        void add(int id);
+
+        /**
+         * Size.
+         *
+         * @return the number of ids
+         */
+        int size();
+
+        /**
+         * To array.
+         *
+         * @return the ids, in increasing order
+         */
+        int[] toArray();
+
+        /**
+         * Keeps the ids of the given sorted array that are also in this list.
+         *
+         * @param ids the ids
+         *
+         * @return the common ids, in increasing order
+         */
+        int[] retain(int[] ids);
+    }
+
+    private static final class ArrayPostings implements Postings {
+        private static final long serialVersionUID = 1L;
+
+        private int[] values = new int[2];
+        private int size;
+
+        @Override
+        public void add(final int id) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = id;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public int[] retain(final int[] ids) {
+            int[] common = new int[ids.length];
+            int count = 0;
+            for (int id : ids) {
+                if (Arrays.binarySearch(values, 0, size, id) >= 0) {
+                    common[count++] = id;
+                }
+            }
+            return Arrays.copyOf(common, count);
+        }
+    }
+
+    private static final class PackedPostings implements Postings {
+        private static final long serialVersionUID = 1L;
+
+        private byte[] bytes = new byte[2];
+        private int length;
+        private int size;
+        private int last;
+
+        @Override
+        public void add(final int id) {
+            int delta = id - last;
+            last = id;
+            size++;
+            while (true) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+                if ((delta & ~VARINT_MASK) == 0) {
+                    bytes[length++] = (byte) delta;
+                    return;
+                }
+                bytes[length++] = (byte) ((delta & VARINT_MASK) | VARINT_MORE);
+                delta >>>= VARINT_BITS;
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int[] toArray() {
+            int[] ids = new int[size];
+            int position = 0;
+            int id = 0;
+            for (int i = 0; i < size; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (b & VARINT_MASK) << shift;
+                    shift += VARINT_BITS;
+                } while ((b & VARINT_MORE) != 0);
+                id += delta;
+                ids[i] = id;
+            }
+            return ids;
+        }
+
+        @Override
+        public int[] retain(final int[] ids) {
+            int[] values = toArray();
+            int[] common = new int[Math.min(ids.length, values.length)];
+            int count = 0;
+            int j = 0;
+            for (int id : ids) {
+                while (j < values.length && values[j] < id) {
+                    j++;
+                }
+                if (j < values.length && values[j] == id) {
+                    common[count++] = id;
+                }
+            }
+            return Arrays.copyOf(common, count);
+        }
+    }
+}
@@ -5,25 +5,22 @@ import app.audio.LibraryEntry;
 import app.utils.Enums;
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-import static app.searchBar.FilterUtils.filterByAlbum;
-import static app.searchBar.FilterUtils.filterByArtist;
 import static app.searchBar.FilterUtils.filterByFollowers;
 import static app.searchBar.FilterUtils.filterByDescription;
-import static app.searchBar.FilterUtils.filterByGenre;
-import static app.searchBar.FilterUtils.filterByLyrics;
 import static app.searchBar.FilterUtils.filterByName;
 import static app.searchBar.FilterUtils.filterByOwner;
 import static app.searchBar.FilterUtils.filterByPlaylistVisibility;
-import static app.searchBar.FilterUtils.filterByReleaseYear;
-import static app.searchBar.FilterUtils.filterByTags;
 
 /**
  * The type Search bar.
  */
-public final class SearchBar {
+public final class SearchBar implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private List<LibraryEntry> results;
     private final String user;
     private static final Integer MAX_RESULTS = 5;
@@ -64,36 +61,7 @@ public final class SearchBar {
 
         switch (type) {
             case "song":
-                entries = new ArrayList<>(Admin.getInstance().getSongs());
-
-                if (filters.getName() != null) {
-                    entries = filterByName(entries, filters.getName());
-                }
-
-                if (filters.getAlbum() != null) {
-                    entries = filterByAlbum(entries, filters.getAlbum());
-                }
-
-                if (filters.getTags() != null) {
-                    entries = filterByTags(entries, filters.getTags());
-                }
-
-                if (filters.getLyrics() != null) {
-                    entries = filterByLyrics(entries, filters.getLyrics());
-                }
-
-                if (filters.getGenre() != null) {
-                    entries = filterByGenre(entries, filters.getGenre());
-                }
-
-                if (filters.getReleaseYear() != null) {
-                    entries = filterByReleaseYear(entries, filters.getReleaseYear());
-                }
-
-                if (filters.getArtist() != null) {
-                    entries = filterByArtist(entries, filters.getArtist());
-                }
-
+                entries = Admin.getInstance().getSongIndex().search(filters, MAX_RESULTS);
                 break;
             case "playlist":
                 entries = new ArrayList<>(Admin.getInstance().getPlaylists());
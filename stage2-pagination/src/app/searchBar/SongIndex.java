@@ -0,0 +1,451 @@
+package app.searchBar;
+
+import app.audio.Files.Song;
+import app.audio.LibraryEntry;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * The type Song index.
+ * Keeps posting lists over the songs of the library, so that a song search only visits
+ * the songs of its most selective filter instead of the whole library.
+ * Songs are numbered in library order, which keeps every posting list sorted and the
+ * results in the same order as a scan over the library.
+ * An index can be copied for new songs equal to the ones it holds. The copy shares the
+ * postings of the original, which must not change anymore, and keeps postings of its
+ * own only for the songs added to it afterwards.
+ */
+public final class SongIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final IntList EMPTY = new IntList();
+
+    private final List<Song> songs = new ArrayList<>();
+    private final Map<Song, Integer> ids = new IdentityHashMap<>();
+    private Postings library;
+    private final Postings added;
+
+    /**
+     * Instantiates a new Song index.
+     *
+     * @param compressedLyrics whether the lyrics index stores compressed posting lists
+     */
+    public SongIndex(final boolean compressedLyrics) {
+        added = new Postings(compressedLyrics);
+    }
+
+    /**
+     * Instantiates a new Song index over copies of the songs of another index.
+     *
+     * @param original the index copied, which must not change anymore
+     * @param copies   the songs replacing the ones of the original, in the same order
+     */
+    public SongIndex(final SongIndex original, final List<Song> copies) {
+        if (original.library != null || copies.size() != original.songs.size()) {
+            throw new IllegalArgumentException("Only a whole library index can be copied");
+        }
+        library = original.added;
+        added = new Postings(library.lyrics.isCompressed());
+        for (Song song : copies) {
+            ids.put(song, songs.size());
+            songs.add(song);
+        }
+    }
+
+    /**
+     * Adds songs at the end of the library.
+     *
+     * @param newSongs the songs
+     */
+    public void addAll(final List<Song> newSongs) {
+        for (Song song : newSongs) {
+            add(song);
+        }
+        added.names.sort();
+    }
+
+    /**
+     * Adds a song at the end of the library.
+     *
+     * @param song the song
+     */
+    public void add(final Song song) {
+        int id = songs.size();
+        songs.add(song);
+        ids.put(song, id);
+        added.add(song, id);
+    }
+
+    /**
+     * Removes a song from the library.
+     * Its id is left in the posting lists and skipped when the lists are read.
+     *
+     * @param song the song
+     */
+    public void remove(final Song song) {
+        Integer id = ids.remove(song);
+        if (id != null) {
+            songs.set(id, null);
+        }
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        songs.clear();
+        ids.clear();
+        library = null;
+        added.clear();
+    }
+
+    /**
+     * Searches the songs matching all the given filters.
+     * The posting lists of the filters are intersected starting from the smallest one,
+     * and the filters without an exact index are checked only on the remaining songs.
+     *
+     * @param filters the filters
+     * @param limit   the maximum number of results
+     *
+     * @return the matching songs, in library order
+     */
+    public List<LibraryEntry> search(final Filters filters, final int limit) {
+        List<IntList> lists = new ArrayList<>();
+        if (filters.getName() != null) {
+            String prefix = filters.getName().toLowerCase();
+            lists.add(both(postings -> postings.names.find(prefix)));
+        }
+        if (filters.getAlbum() != null) {
+            lists.add(both(postings -> postings.albums.getOrDefault(
+                    foldCase(filters.getAlbum()), EMPTY)));
+        }
+        if (filters.getTags() != null) {
+            for (String tag : filters.getTags()) {
+                lists.add(both(postings -> postings.tags.getOrDefault(
+                        tag.toLowerCase(), EMPTY)));
+            }
+        }
+        if (filters.getGenre() != null) {
+            lists.add(both(postings -> postings.genres.getOrDefault(
+                    foldCase(filters.getGenre()), EMPTY)));
+        }
+        if (filters.getArtist() != null) {
+            lists.add(both(postings -> postings.artists.getOrDefault(
+                    foldCase(filters.getArtist()), EMPTY)));
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+
+        boolean yearIndexed = false;
+        if (filters.getReleaseYear() != null) {
+            List<IntList> years = new ArrayList<>();
+            if (library != null) {
+                years.addAll(library.getReleaseYears(filters.getReleaseYear()));
+            }
+            years.addAll(added.getReleaseYears(filters.getReleaseYear()));
+            int count = 0;
+            for (IntList yearList : years) {
+                count += yearList.size();
+            }
+            if (lists.isEmpty() || count < lists.get(0).size()) {
+                lists.add(0, IntList.merge(years, count));
+                yearIndexed = true;
+            }
+        }
+
+        if (filters.getLyrics() != null) {
+            int smallest = lists.isEmpty() ? songs.size() : lists.get(0).size();
+            String query = filters.getLyrics().toLowerCase();
+            int[] candidates = added.lyrics.candidates(query, smallest);
+            if (library != null && candidates != null) {
+                int[] libraryCandidates = library.lyrics.candidates(query, smallest);
+                candidates = libraryCandidates == null ? null
+                        : IntList.concat(IntList.wrap(libraryCandidates),
+                                IntList.wrap(candidates)).toArray();
+            }
+            if (candidates != null) {
+                lists.add(0, IntList.wrap(candidates));
+            }
+        }
+
+        List<LibraryEntry> results = new ArrayList<>();
+        int candidates = lists.isEmpty() ? songs.size() : lists.get(0).size();
+        for (int i = 0; i < candidates && results.size() < limit; i++) {
+            int id = lists.isEmpty() ? i : lists.get(0).get(i);
+            Song song = songs.get(id);
+            if (song == null || !containedInAll(lists, id)) {
+                continue;
+            }
+            if (filters.getLyrics() != null && !song.matchesLyrics(filters.getLyrics())) {
+                continue;
+            }
+            if (filters.getReleaseYear() != null && !yearIndexed
+                    && !song.matchesReleaseYear(filters.getReleaseYear())) {
+                continue;
+            }
+            results.add(song);
+        }
+        return results;
+    }
+
+    /**
+     * Reads a posting list from the library postings and from the added ones. The ids of
+     * the added songs all come after the ids of the library, so the two lists are
+     * concatenated in order.
+     */
+    private IntList both(final Function<Postings, IntList> lookup) {
+        IntList own = lookup.apply(added);
+        return library == null ? own : IntList.concat(lookup.apply(library), own);
+    }
+
+    private static boolean containedInAll(final List<IntList> lists, final int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Folds the case of every character the same way equalsIgnoreCase compares them,
+     * so that two keys are equal exactly when the original strings match ignoring case.
+     */
+    private static String foldCase(final String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * The posting lists of a run of songs, by every indexed field.
+     */
+    private static final class Postings implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, IntList> genres = new HashMap<>();
+        private final Map<String, IntList> artists = new HashMap<>();
+        private final Map<String, IntList> albums = new HashMap<>();
+        private final Map<String, IntList> tags = new HashMap<>();
+        private final TreeMap<Integer, IntList> releaseYears = new TreeMap<>();
+        private final NameIndex names = new NameIndex();
+        private final LyricsIndex lyrics;
+
+        Postings(final boolean compressedLyrics) {
+            lyrics = new LyricsIndex(compressedLyrics);
+        }
+
+        void add(final Song song, final int id) {
+            if (song.getGenre() != null) {
+                postingList(genres, foldCase(song.getGenre())).add(id);
+            }
+            if (song.getArtist() != null) {
+                postingList(artists, foldCase(song.getArtist())).add(id);
+            }
+            if (song.getAlbum() != null) {
+                postingList(albums, foldCase(song.getAlbum())).add(id);
+            }
+            if (song.getTags() != null) {
+                for (String tag : song.getTags()) {
+                    IntList tagList = postingList(tags, tag.toLowerCase());
+                    if (tagList.size() == 0 || tagList.get(tagList.size() - 1) != id) {
+                        tagList.add(id);
+                    }
+                }
+            }
+            if (song.getReleaseYear() != null) {
+                postingList(releaseYears, song.getReleaseYear()).add(id);
+            }
+            names.add(song.getName().toLowerCase(), id);
+            if (song.getLyrics() != null) {
+                lyrics.add(song.getLyrics(), id);
+            }
+        }
+
+        Collection<IntList> getReleaseYears(final String query) {
+            if (query.startsWith("<")) {
+                return releaseYears.headMap(Integer.parseInt(query.substring(1)), false)
+                        .values();
+            } else if (query.startsWith(">")) {
+                return releaseYears.tailMap(Integer.parseInt(query.substring(1)), false)
+                        .values();
+            }
+            IntList yearList = releaseYears.get(Integer.parseInt(query));
+            return yearList == null ? List.of() : List.of(yearList);
+        }
+
+        void clear() {
+            genres.clear();
+            artists.clear();
+            albums.clear();
+            tags.clear();
+            releaseYears.clear();
+            names.clear();
+            lyrics.clear();
+        }
+
+        private static <K> IntList postingList(final Map<K, IntList> index, final K key) {
+            return index.computeIfAbsent(key, k -> new IntList());
+        }
+    }
+
+    /**
+     * A growable, sorted list of song ids.
+     */
+    private static final class IntList implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int[] values = new int[2];
+        private int size;
+
+        void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(final int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(final int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        static IntList concat(final IntList first, final IntList second) {
+            if (second.size == 0) {
+                return first;
+            } else if (first.size == 0) {
+                return second;
+            }
+            IntList joined = new IntList();
+            joined.values = Arrays.copyOf(first.values, first.size + second.size);
+            System.arraycopy(second.values, 0, joined.values, first.size, second.size);
+            joined.size = first.size + second.size;
+            return joined;
+        }
+
+        static IntList wrap(final int[] values) {
+            IntList list = new IntList();
+            list.values = values;
+            list.size = values.length;
+            return list;
+        }
+
+        static IntList merge(final Collection<IntList> lists, final int count) {
+            IntList merged = new IntList();
+            merged.values = new int[Math.max(count, 2)];
+            for (IntList list : lists) {
+                System.arraycopy(list.values, 0, merged.values, merged.size, list.size);
+                merged.size += list.size;
+            }
+            Arrays.sort(merged.values, 0, merged.size);
+            return merged;
+        }
+    }
+
+    /**
+     * The lower-cased song names, sorted, so that the names starting with a prefix form a
+     * single range found by binary search.
+     * Each song costs one name and one id, whatever the length of its name. The songs
+     * added since the last search are sorted on their own and merged in on the next search.
+     */
+    private static final class NameIndex implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String[] names = new String[2];
+        private int[] ids = new int[2];
+        private int size;
+        private int sorted;
+
+        void add(final String name, final int id) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            names[size] = name;
+            ids[size++] = id;
+        }
+
+        IntList find(final String prefix) {
+            sort();
+            int from = lowerBound(prefix);
+            int to = from;
+            while (to < size && names[to].startsWith(prefix)) {
+                to++;
+            }
+            int[] found = Arrays.copyOfRange(ids, from, to);
+            Arrays.sort(found);
+            return IntList.wrap(found);
+        }
+
+        void clear() {
+            Arrays.fill(names, 0, size, null);
+            size = 0;
+            sorted = 0;
+        }
+
+        private int lowerBound(final String key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (names[middle].compareTo(key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void sort() {
+            if (sorted == size) {
+                return;
+            }
+            Integer[] added = new Integer[size - sorted];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = sorted + i;
+            }
+            Arrays.sort(added, Comparator.comparing((Integer i) -> names[i]));
+
+            String[] mergedNames = new String[names.length];
+            int[] mergedIds = new int[ids.length];
+            int left = 0;
+            int right = 0;
+            for (int i = 0; i < size; i++) {
+                if (right == added.length || left < sorted
+                        && names[left].compareTo(names[added[right]]) <= 0) {
+                    mergedNames[i] = names[left];
+                    mergedIds[i] = ids[left++];
+                } else {
+                    mergedNames[i] = names[added[right]];
+                    mergedIds[i] = ids[added[right++]];
+                }
+            }
+            names = mergedNames;
+            ids = mergedIds;
+            sorted = size;
+        }
+    }
+}
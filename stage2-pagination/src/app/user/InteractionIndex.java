@@ -0,0 +1,272 @@
+package app.user;
+
+import app.Admin;
+import app.audio.Collections.Album;
+import app.audio.Collections.AudioCollection;
+import app.audio.Collections.Playlist;
+import app.audio.Collections.Podcast;
+import app.audio.Files.Song;
+import app.player.PlayerSource;
+import app.utils.Enums;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The type Interaction index.
+ * Keeps, for every artist, host, album, podcast and song, the users whose player is
+ * currently loaded with something involving it, and for every artist and host the users
+ * viewing their page. Players report each source they load or drop and users report each
+ * page they open, so the checks before deleting a user, an album or a podcast look up the
+ * users involved instead of asking every player in turn. Songs are counted by their key,
+ * see SongKeys, so songs named alike count as one.
+ * The index is shared by the shards of a sharded replay, hence the synchronized methods.
+ */
+public final class InteractionIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<User, PlayerSource> sources = new HashMap<>();
+    private final Map<User, String> pages = new HashMap<>();
+    private final Map<Playlist, Set<User>> playlistListeners = new HashMap<>();
+    private final Tally<String> creators = new Tally<>();
+    private final Tally<String> viewers = new Tally<>();
+    private final Tally<String> albumNames = new Tally<>();
+    private final Tally<String> podcastNames = new Tally<>();
+    private final Tally<Integer> songKeys = new Tally<>();
+
+    /**
+     * Records the source a user's player is loaded with, replacing the previous one.
+     *
+     * @param user   the user
+     * @param source the source, or null if the player was stopped
+     */
+    public synchronized void playing(final User user, final PlayerSource source) {
+        PlayerSource previous = source == null ? sources.remove(user) : sources.put(user, source);
+        if (previous != null) {
+            count(user, previous, false);
+        }
+        if (source != null) {
+            count(user, source, true);
+        }
+    }
+
+    /**
+     * Records the artist or host page a user is viewing, replacing the previous one.
+     *
+     * @param user      the user
+     * @param pageOwner the owner of the page, or null if the user isn't on such a page
+     */
+    public synchronized void viewing(final User user, final String pageOwner) {
+        String previous = pageOwner == null ? pages.remove(user) : pages.put(user, pageOwner);
+        if (previous != null) {
+            viewers.remove(keyOf(previous), user);
+        }
+        if (pageOwner != null) {
+            viewers.add(keyOf(pageOwner), user);
+        }
+    }
+
+    /**
+     * Records a song added to a playlist, for the users playing that playlist.
+     *
+     * @param playlist the playlist
+     * @param song     the song
+     */
+    public synchronized void songAdded(final Playlist playlist, final Song song) {
+        for (User user : playlistListeners.getOrDefault(playlist, Set.of())) {
+            songKeys.add(keyOf(song), user);
+            creators.add(keyOf(song.getArtist()), user);
+        }
+    }
+
+    /**
+     * Records a song removed from a playlist, for the users playing that playlist.
+     *
+     * @param playlist the playlist
+     * @param song     the song
+     */
+    public synchronized void songRemoved(final Playlist playlist, final Song song) {
+        for (User user : playlistListeners.getOrDefault(playlist, Set.of())) {
+            songKeys.remove(keyOf(song), user);
+            creators.remove(keyOf(song.getArtist()), user);
+        }
+    }
+
+    /**
+     * Drops everything recorded about a user that is being deleted.
+     *
+     * @param user the user
+     */
+    public synchronized void forget(final User user) {
+        playing(user, null);
+        viewing(user, null);
+    }
+
+    /**
+     * Checks whether any other user plays content of a creator or views their page.
+     *
+     * @param creator the artist or host
+     *
+     * @return true if another user interacts with the creator, false otherwise
+     */
+    public synchronized boolean interactsWith(final User creator) {
+        String key = keyOf(creator.getUsername());
+        Predicate<User> other = user -> user != creator;
+        return creators.anyMatch(key, other) || viewers.anyMatch(key, other);
+    }
+
+    /**
+     * Checks whether a normal user other than the given one plays from an album, that is
+     * the album itself or a song named as one of its songs.
+     *
+     * @param album  the album
+     * @param except the user to ignore
+     *
+     * @return true if such a user plays from the album, false otherwise
+     */
+    public synchronized boolean playsFrom(final Album album, final User except) {
+        Predicate<User> listener = user -> user != except
+                && user.getUserType() == Enums.UserType.USER;
+        if (albumNames.anyMatch(album.getName(), listener)) {
+            return true;
+        }
+        for (Song song : album.getSongs()) {
+            if (songKeys.anyMatch(keyOf(song), listener)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a normal user other than the given one plays from a podcast.
+     *
+     * @param podcast the podcast
+     * @param except  the user to ignore
+     *
+     * @return true if such a user plays from the podcast, false otherwise
+     */
+    public synchronized boolean playsFrom(final Podcast podcast, final User except) {
+        return podcastNames.anyMatch(podcast.getName(), user -> user != except
+                && user.getUserType() == Enums.UserType.USER);
+    }
+
+    /**
+     * Clear.
+     */
+    public synchronized void clear() {
+        sources.clear();
+        pages.clear();
+        playlistListeners.clear();
+        creators.clear();
+        viewers.clear();
+        albumNames.clear();
+        podcastNames.clear();
+        songKeys.clear();
+    }
+
+    private void count(final User user, final PlayerSource source, final boolean add) {
+        AudioCollection collection = source.getAudioCollection();
+        switch (source.getType()) {
+            case LIBRARY -> {
+                if (source.getAudioFile() instanceof Song song) {
+                    songKeys.update(keyOf(song), user, add);
+                    creators.update(keyOf(song.getArtist()), user, add);
+                }
+            }
+            case PLAYLIST -> {
+                Playlist playlist = (Playlist) collection;
+                if (add) {
+                    playlistListeners.computeIfAbsent(playlist, p -> new LinkedHashSet<>())
+                            .add(user);
+                } else {
+                    Set<User> listeners = playlistListeners.get(playlist);
+                    listeners.remove(user);
+                    if (listeners.isEmpty()) {
+                        playlistListeners.remove(playlist);
+                    }
+                }
+                creators.update(keyOf(playlist.getOwner()), user, add);
+                for (Song song : playlist.getSongs()) {
+                    songKeys.update(keyOf(song), user, add);
+                    creators.update(keyOf(song.getArtist()), user, add);
+                }
+            }
+            case ALBUM -> {
+                albumNames.update(collection.getName(), user, add);
+                creators.update(keyOf(collection.getOwner()), user, add);
+            }
+            case PODCAST -> {
+                podcastNames.update(collection.getName(), user, add);
+                creators.update(keyOf(collection.getOwner()), user, add);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static String keyOf(final String name) {
+        return name.toLowerCase();
+    }
+
+    private static int keyOf(final Song song) {
+        return Admin.getInstance().getSongKeys().keyOf(song);
+    }
+
+    /**
+     * Counts, for every key, how many times each user refers to it. A playlist may hold
+     * several songs of the same artist, so a user only stops counting for that artist
+     * once all of them are gone.
+     *
+     * @param <K> the type of the keys
+     */
+    private static final class Tally<K> implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<K, Map<User, Integer>> counts = new HashMap<>();
+
+        void add(final K key, final User user) {
+            counts.computeIfAbsent(key, k -> new HashMap<>()).merge(user, 1, Integer::sum);
+        }
+
+        void remove(final K key, final User user) {
+            Map<User, Integer> users = counts.get(key);
+            if (users == null) {
+                return;
+            }
+            users.computeIfPresent(user, (u, count) -> count == 1 ? null : count - 1);
+            if (users.isEmpty()) {
+                counts.remove(key);
+            }
+        }
+
+        void update(final K key, final User user, final boolean add) {
+            if (add) {
+                add(key, user);
+            } else {
+                remove(key, user);
+            }
+        }
+
+        boolean anyMatch(final K key, final Predicate<User> filter) {
+            Map<User, Integer> users = counts.get(key);
+            if (users == null) {
+                return false;
+            }
+            for (User user : users.keySet()) {
+                if (filter.test(user)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void clear() {
+            counts.clear();
+        }
+    }
+}
@@ -20,13 +20,22 @@ import app.searchBar.SearchBar;
 import app.utils.Enums;
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
+
+import static app.CommandRunner.LIMIT;
 
 /**
  * The type User.
  */
-public class User {
+public class User implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @Getter
     private String username;
     @Getter
@@ -35,10 +44,8 @@ public class User {
     private String city;
     @Getter
     private ArrayList<Playlist> playlists;
-    @Getter
-    private ArrayList<Song> likedSongs;
-    @Getter
-    private ArrayList<Playlist> followedPlaylists;
+    private LinkedHashMap<Integer, Song> likedSongs;
+    private LinkedHashMap<Playlist.Key, Playlist> followedPlaylists;
     private final Player player;
     private final SearchBar searchBar;
     private boolean lastSearched;
@@ -51,11 +58,47 @@ public class User {
     private List<Merch> merch;
     private List<Podcast> podcasts;
     private List<Announcement> announcements;
+    private transient String homePage;
+    private transient long homePageEpoch;
+    private long listingOrder;
+    private transient String likedContentPage;
+    private transient String artistPage;
+    private transient String hostPage;
 
     public final String getOwnerPage() {
         return ownerPage;
     }
 
+    /**
+     * Sets the order the user was added in among the users of the engine, which is the
+     * order Admin.getPlaylists lists the playlists of the users in.
+     *
+     * @param listingOrder the order
+     */
+    public void setListingOrder(final long listingOrder) {
+        this.listingOrder = listingOrder;
+    }
+
+    /**
+     * Gets the liked songs, in the order they were liked. They are kept by their key, see
+     * SongKeys, so liking a song named as one already liked unlikes that one instead.
+     *
+     * @return the liked songs
+     */
+    public Collection<Song> getLikedSongs() {
+        return likedSongs.values();
+    }
+
+    /**
+     * Gets the followed playlists, in the order they were followed. They are kept by owner
+     * and name, see Playlist.Key.
+     *
+     * @return the followed playlists
+     */
+    public Collection<Playlist> getFollowedPlaylists() {
+        return followedPlaylists.values();
+    }
+
     /**
      * Instantiates a new User.
      *
@@ -68,9 +111,9 @@ public class User {
         this.age = age;
         this.city = city;
         playlists = new ArrayList<>();
-        likedSongs = new ArrayList<>();
-        followedPlaylists = new ArrayList<>();
-        player = new Player();
+        likedSongs = new LinkedHashMap<>();
+        followedPlaylists = new LinkedHashMap<>();
+        player = new Player(this);
         searchBar = new SearchBar(username);
         lastSearched = false;
         isOnline = true;
@@ -148,6 +191,7 @@ public class User {
 
     public final void setAlbums(final List<Album> albums) {
         this.albums = albums;
+        artistPage = null;
     }
 
     /**
@@ -356,15 +400,17 @@ public class User {
         }
 
         Song song = (Song) player.getCurrentAudioFile();
+        int key = Admin.getInstance().getSongKeys().keyOf(song);
 
-        if (likedSongs.contains(song)) {
-            likedSongs.remove(song);
+        homePage = null;
+        likedContentPage = null;
+        if (likedSongs.remove(key) != null) {
             song.dislike();
 
             return "Unlike registered successfully.";
         }
 
-        likedSongs.add(song);
+        likedSongs.put(key, song);
         song.like();
         return "Like registered successfully.";
     }
@@ -419,6 +465,7 @@ public class User {
         }
 
         playlists.add(new Playlist(name, username, timestamp));
+        Admin.getInstance().popularityChanged();
 
         return "Playlist created successfully.";
     }
@@ -445,12 +492,15 @@ public class User {
 
         Playlist playlist = playlists.get(id - 1);
 
-        if (playlist.containsSong((Song) player.getCurrentAudioFile())) {
-            playlist.removeSong((Song) player.getCurrentAudioFile());
+        Song song = (Song) player.getCurrentAudioFile();
+        Song removed = playlist.removeSong(song);
+        if (removed != null) {
+            Admin.getInstance().getInteractions().songRemoved(playlist, removed);
             return "Successfully removed from playlist.";
         }
 
-        playlist.addSong((Song) player.getCurrentAudioFile());
+        playlist.addSong(song);
+        Admin.getInstance().getInteractions().songAdded(playlist, song);
         return "Successfully added to playlist.";
     }
 
@@ -513,14 +563,15 @@ public class User {
             return "You cannot follow or unfollow your own playlist.";
         }
 
-        if (followedPlaylists.contains(playlist)) {
-            followedPlaylists.remove(playlist);
+        homePage = null;
+        likedContentPage = null;
+        if (followedPlaylists.remove(playlist.getKey()) != null) {
             playlist.decreaseFollowers();
 
             return "Playlist unfollowed successfully.";
         }
 
-        followedPlaylists.add(playlist);
+        followedPlaylists.put(playlist.getKey(), playlist);
         playlist.increaseFollowers();
 
 
@@ -544,6 +595,16 @@ public class User {
         return stats;
     }
 
+    /**
+     * Checks whether the player of the user moves on as time passes, whatever the stats
+     * show for an offline user.
+     *
+     * @return true if something is loaded and not paused
+     */
+    public final boolean isPlaying() {
+        return player.getSource() != null && !player.getPaused();
+    }
+
     /**
      * Show preferred songs array list.
      *
@@ -551,7 +612,7 @@ public class User {
      */
     public ArrayList<String> showPreferredSongs() {
         ArrayList<String> results = new ArrayList<>();
-        for (AudioFile audioFile : likedSongs) {
+        for (AudioFile audioFile : likedSongs.values()) {
             results.add(audioFile.getName());
         }
 
@@ -569,7 +630,7 @@ public class User {
         int mostLikedIndex = -1;
         int mostLikedCount = 0;
 
-        for (Song song : likedSongs) {
+        for (Song song : likedSongs.values()) {
             for (int i = 0; i < genres.length; i++) {
                 if (song.getGenre().equals(genres[i])) {
                     counts[i]++;
@@ -600,10 +661,11 @@ public class User {
             albums = new ArrayList<Album>();
         }
 
-        if (albums.contains(newAlbum)) {
+        if (albums.stream().anyMatch(a -> a.getName().equals(newAlbum.getName()))) {
             return username + " has another album with the same name.";
         }
         albums.add(newAlbum);
+        artistPage = null;
         return username + " has added new album successfully.";
     }
 
@@ -616,13 +678,7 @@ public class User {
      * @return a boolean indicating whether the album can be deleted
      */
     private boolean canDelete(final Album album) {
-        for (User user : Admin.getInstance().getUsers()) {
-            if (user != this && user.userType == Enums.UserType.USER
-                    && user.player.playFrom(album)) {
-                return false;
-            }
-        }
-        return true;
+        return !Admin.getInstance().getInteractions().playsFrom(album, this);
     }
 
     /**
@@ -638,6 +694,7 @@ public class User {
             if (album.getName().equals(albumName)) {
                 if (canDelete(album)) {
                     albums.remove(album);
+                    artistPage = null;
                     return username + " deleted the album successfully.";
                 } else {
                     return username + " can't delete this album.";
@@ -648,15 +705,6 @@ public class User {
         return username + " doesn't have an album with the given name.";
     }
 
-    /**
-     * Simulate time.
-     *
-     * @param time the time
-     */
-    public void simulateTime(final int time) {
-        player.simulatePlayer(time);
-    }
-
 
     /**
      * Sets the user type and updates the user page accordingly.
@@ -671,6 +719,7 @@ public class User {
         } else if (userType == Enums.UserType.ARTIST) {
             userPage = Enums.UserPage.ARTIST_PAGE;
         }
+        pageChanged();
     }
 
     public final Enums.UserPage getUserPage() {
@@ -696,6 +745,13 @@ public class User {
 
     public final void setUserPage(final Enums.UserPage userPage) {
         this.userPage = userPage;
+        pageChanged();
+    }
+
+    private void pageChanged() {
+        boolean creatorPage = userPage == Enums.UserPage.HOST_PAGE
+                || userPage == Enums.UserPage.ARTIST_PAGE;
+        Admin.getInstance().getInteractions().viewing(this, creatorPage ? ownerPage : null);
     }
 
     /**
@@ -715,6 +771,7 @@ public class User {
             ownerPage = null;
             searchBar.clearSelection();
         }
+        pageChanged();
 
     }
 
@@ -735,6 +792,7 @@ public class User {
         }
 
         events.add(newEvent);
+        artistPage = null;
         return username + " has added new event successfully.";
     }
 
@@ -749,6 +807,7 @@ public class User {
         for (Event event : events) {
             if (event.getName().equals(eventName)) {
                 events.remove(event);
+                artistPage = null;
                 return username + " deleted the event successfully.";
             }
         }
@@ -775,6 +834,7 @@ public class User {
         }
 
         merch.add(newMerch);
+        artistPage = null;
         return username + " has added new merchandise successfully.";
     }
 
@@ -782,32 +842,15 @@ public class User {
         return searchBar.getLastSelected();
     }
 
-    /**
-     * Checks if there is an interaction between this user and another specified user.
-     *
-     * @param user the user to check interaction with
-     * @return true if there is an interaction, false otherwise
-     */
-    public final boolean existsInteraction(final User user) {
-        if (user != this) {
-            if (player.playFrom(user)) {
-                return true;
-            }
-            return (userPage == Enums.UserPage.HOST_PAGE || userPage == Enums.UserPage.ARTIST_PAGE)
-                    && user.getUsername().equalsIgnoreCase(ownerPage);
-        }
-        return false;
-    }
-
     /**
      * Before deleting a user: like disliking all liked songs
      * and decreasing the followers of all followed playlists.
      */
     public final void cleanBeforeDelete() {
-        for (Song song : likedSongs) {
+        for (Song song : likedSongs.values()) {
             song.dislike();
         }
-        for (Playlist playlist : followedPlaylists) {
+        for (Playlist playlist : followedPlaylists.values()) {
             playlist.decreaseFollowers();
         }
     }
@@ -821,7 +864,7 @@ public class User {
      * @return a string message
      */
     public final String addPodcast(final Podcast podcast) {
-        if (podcasts.contains(podcast)) {
+        if (podcasts.stream().anyMatch(p -> p.getName().equals(podcast.getName()))) {
             return username + " has another podcast with the same name.";
         }
 
@@ -835,6 +878,7 @@ public class User {
         }
 
         podcasts.add(podcast);
+        hostPage = null;
         return null;
     }
 
@@ -846,13 +890,7 @@ public class User {
      * @return true if the podcast can be deleted, false otherwise
      */
     private boolean canDelete(final Podcast podcast) {
-        for (User user : Admin.getInstance().getUsers()) {
-            if (user != this && user.userType == Enums.UserType.USER
-                    && user.player.playFrom(podcast)) {
-                return false;
-            }
-        }
-        return true;
+        return !Admin.getInstance().getInteractions().playsFrom(podcast, this);
     }
 
     /**
@@ -867,6 +905,7 @@ public class User {
             if (podcast.getName().equals(podcastName)) {
                 if (canDelete(podcast)) {
                     podcasts.remove(podcast);
+                    hostPage = null;
                     return username + " deleted the podcast successfully.";
                 } else {
                     return username + " can't delete this podcast.";
@@ -889,6 +928,7 @@ public class User {
         }
 
         announcements.add(announcement);
+        hostPage = null;
         return username + " has successfully added new announcement.";
     }
 
@@ -904,6 +944,7 @@ public class User {
         for (Announcement a : announcements) {
             if (a.getName().equals(announcement)) {
                 announcements.remove(a);
+                hostPage = null;
                 return username + " has successfully deleted the announcement.";
             }
         }
@@ -940,36 +981,192 @@ public class User {
 
     /**
      * Removes likes and follows related to a specified user's content.
-     * It processes playlists and songs in reverse order to manage the
-     * removal of items correctly during iteration.
+     * The keys of the playlists and of the album songs of the user are gathered once by the
+     * caller, for all the users. Like the likes themselves, songs go by key: a liked song
+     * named as one of the songs goes too.
      *
-     * @param user the user whose content will be unfollowed or unliked by the current user
+     * @param user          the user whose content will be unfollowed or unliked by the
+     *                      current user
+     * @param userPlaylists the keys of the playlists of the user
+     * @param albumSongs    the keys of the songs in the albums of the user, see SongKeys
      */
-    public void deleteLikeAndFollowFrom(final User user) {
+    public void deleteLikeAndFollowFrom(final User user, final Set<Playlist.Key> userPlaylists,
+                                        final Set<Integer> albumSongs) {
         if (user == this) {
             return;
         }
 
-        for (int i = followedPlaylists.size() - 1; i >= 0; i--) {
-            Playlist playlist = followedPlaylists.get(i);
-            if (user.playlists.contains(playlist)) {
-                followedPlaylists.remove(i);
-            }
+        boolean changed = false;
+        for (Playlist.Key key : userPlaylists) {
+            changed |= followedPlaylists.remove(key) != null;
+        }
+        if (likedSongs.keySet().removeAll(albumSongs) || changed) {
+            likedContentPage = null;
         }
+        // The home page only lists playlists whose owner is still a user.
+        homePage = null;
+    }
 
-        for (int i = likedSongs.size() - 1; i >= 0; i--) {
-            Song song = likedSongs.get(i);
-            for (Album album : user.albums) {
-                if (album.getSongs().contains(song)) {
-                    likedSongs.remove(i);
-                    break;
+    /**
+     * Gets the message of the home page of the user: the most liked of the liked songs and
+     * the most followed of the followed playlists, five of each.
+     * The page is kept until the user likes or follows something, or until a like, a
+     * follower count or a listed playlist of the engine changes, see
+     * Admin.getPopularityEpoch. It is then rebuilt in a single pass over the songs and
+     * playlists of the user, keeping only the top five, so rendering never depends on the
+     * size of the library. Each followed playlist is looked up in the listing once, before
+     * the pass, so ranking it never searches the users again.
+     *
+     * @return the message of the page
+     */
+    public final String getHomePage() {
+        Admin admin = Admin.getInstance();
+        long epoch = admin.getPopularityEpoch();
+        if (homePage == null || homePageEpoch != epoch) {
+            Comparator<Song> byLikes = Comparator.comparingInt(Song::getLikes).reversed();
+            List<Song> topSongs = new ArrayList<>(LIMIT + 1);
+            for (Song song : likedSongs.values()) {
+                keepTop(topSongs, song, byLikes);
+            }
+
+            // Followed playlists have distinct keys, so they stand for distinct listings.
+            List<Listing> topListings = new ArrayList<>(LIMIT + 1);
+            for (Playlist playlist : followedPlaylists.values()) {
+                Listing listing = listingOf(admin, playlist);
+                if (listing != null) {
+                    keepTop(topListings, listing, Listing.BY_FOLLOWERS);
                 }
             }
+            List<Playlist> topPlaylists = new ArrayList<>(topListings.size());
+            for (Listing listing : topListings) {
+                topPlaylists.add(listing.playlist());
+            }
+
+            homePage = "Liked songs:\n\t[" + String.join(", ", namesOf(topSongs))
+                    + "]\n\nFollowed playlists:\n\t[" + String.join(", ", namesOf(topPlaylists))
+                    + "]";
+            homePageEpoch = epoch;
+        }
+        return homePage;
+    }
+
+    /**
+     * Inserts an entry into a top list sorted by an order, after the entries it ties with,
+     * and drops whatever falls beyond the limit.
+     */
+    private static <T> void keepTop(final List<T> top, final T entry,
+                                    final Comparator<? super T> order) {
+        int position = top.size();
+        while (position > 0 && order.compare(entry, top.get(position - 1)) < 0) {
+            position--;
+        }
+        if (position < LIMIT) {
+            top.add(position, entry);
+            if (top.size() > LIMIT) {
+                top.remove(LIMIT);
+            }
+        }
+    }
+
+    /**
+     * A playlist as Admin.getPlaylists lists it: by the order its owner was added in, then
+     * by its position among the playlists of the owner.
+     */
+    private record Listing(Playlist playlist, long ownerOrder, int position) {
+        static final Comparator<Listing> BY_FOLLOWERS = Comparator
+                .comparingInt((Listing listing) -> listing.playlist().getFollowers())
+                .reversed()
+                .thenComparingInt(listing -> listing.playlist().getTimestamp())
+                .thenComparingLong(Listing::ownerOrder)
+                .thenComparingInt(Listing::position);
+    }
+
+    /**
+     * Finds the listed playlist a followed one stands for: the playlist of its owner with
+     * its name. A playlist selected before its owner was deleted can still be followed
+     * afterwards; it is listed again only once a user with that name creates a playlist
+     * with that name.
+     */
+    private static Listing listingOf(final Admin admin, final Playlist followed) {
+        User owner = admin.getUser(followed.getOwner());
+        if (owner == null) {
+            return null;
+        }
+        List<Playlist> owned = owner.getPlaylists();
+        for (int i = 0; i < owned.size(); i++) {
+            if (owned.get(i).getName().equals(followed.getName())) {
+                return new Listing(owned.get(i), owner.listingOrder, i);
+            }
+        }
+        return null;
+    }
+
+    private static List<String> namesOf(final List<? extends LibraryEntry> entries) {
+        List<String> names = new ArrayList<>(entries.size());
+        for (LibraryEntry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Gets the message of the liked content page of the user.
+     * The page is rendered once and kept until a like or a follow of the user changes it.
+     *
+     * @return the message of the page
+     */
+    public final String getLikedContentPage() {
+        if (likedContentPage == null) {
+            List<String> songs = new ArrayList<>();
+            for (Song song : likedSongs.values()) {
+                songs.add(song.getName() + " - " + song.getArtist());
+            }
+            List<String> playlistNames = new ArrayList<>();
+            for (Playlist playlist : followedPlaylists.values()) {
+                playlistNames.add(playlist.getName() + " - " + playlist.getOwner());
+            }
+            likedContentPage = "Liked songs:\n\t[" + String.join(", ", songs)
+                    + "]\n\nFollowed playlists:\n\t[" + String.join(", ", playlistNames)
+                    + "]";
+        }
+        return likedContentPage;
+    }
+
+    /**
+     * Gets the message of the page of this artist.
+     * The page is shared by every user viewing it, rendered once and kept until an album,
+     * a merchandise item or an event of the artist is added or removed.
+     *
+     * @return the message of the page
+     */
+    public final String getArtistPage() {
+        if (artistPage == null) {
+            artistPage = "Albums:\n\t[" + String.join(", ", getAlbumsName())
+                    + "]\n\nMerch:\n\t[" + String.join(", ", getMerchInfo())
+                    + "]\n\nEvents:\n\t[" + String.join(", ", getEventsInfo()) + "]";
+        }
+        return artistPage;
+    }
+
+    /**
+     * Gets the message of the page of this host.
+     * The page is shared by every user viewing it, rendered once and kept until a podcast
+     * or an announcement of the host is added or removed.
+     *
+     * @return the message of the page
+     */
+    public final String getHostPage() {
+        if (hostPage == null) {
+            hostPage = "Podcasts:\n\t[" + String.join(", ", getPodcastsInfo())
+                    + "]\n\nAnnouncements:\n\t[" + String.join(", ", getAnnouncementsInfo())
+                    + "\n]";
         }
+        return hostPage;
     }
 
     public final void setOwnerPage(final String ownerPage) {
         this.ownerPage = ownerPage;
+        pageChanged();
     }
     public final Enums.UserType getUserType() {
         return userType;
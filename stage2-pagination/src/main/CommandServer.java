@@ -0,0 +1,366 @@
+package main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.input.CommandInput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * The type Command server.
+ * Serves the engine over a local TCP or Unix-domain socket. Clients send one CommandInput
+ * json per line and get back one json line per command, in the order they were sent.
+ * Every session is multiplexed on a single selector thread, so an idle session costs a
+ * channel and a few small buffers rather than a thread, and many thousands of listeners
+ * can stay connected. Commands from all the sessions are run one at a time, in arrival
+ * order, on a single engine thread that owns the Admin, except for the reads that
+ * SnapshotReads serves from the answers the engine published, on other threads.
+ * A command without output, like an unknown one, is answered with an error line, and a
+ * line longer than MAX_LINE_LENGTH is answered with an error line that ends the session.
+ */
+public final class CommandServer implements Closeable {
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_IN_FLIGHT = 1024;
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+    private static final byte NEW_LINE = '\n';
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final Queue<Session> writable = new ConcurrentLinkedQueue<>();
+    private final ExecutorService engine;
+    private final Function<CommandInput, ObjectNode> execute;
+    private final SnapshotReads reads;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final SocketAddress address;
+    private volatile boolean running = true;
+
+    /**
+     * Opens a server on a local address.
+     *
+     * @param address the address to listen on, an InetSocketAddress or a
+     *                UnixDomainSocketAddress
+     * @param engine  the single thread that runs the commands
+     * @param execute executes a command on the Admin of the engine thread
+     * @param reads   serves the reads from published answers, or null to run them on the
+     *                engine
+     * @throws IOException in case of exceptions to binding
+     */
+    public CommandServer(final SocketAddress address, final ExecutorService engine,
+                         final Function<CommandInput, ObjectNode> execute,
+                         final SnapshotReads reads) throws IOException {
+        this.engine = engine;
+        this.execute = execute;
+        this.reads = reads;
+        if (address instanceof UnixDomainSocketAddress) {
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+        server.configureBlocking(false);
+        this.address = server.getLocalAddress();
+        selector = Selector.open();
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts a server over the library in the input directory.
+     * The argument is a port on the loopback interface, or the path of a Unix-domain
+     * socket. A second argument names a journal directory, whose commands are replayed
+     * before serving and to which every served command is logged.
+     *
+     * @param args the port or socket path, then optionally the journal directory
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        SocketAddress address = args[0].chars().allMatch(Character::isDigit)
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(args[0]))
+                : UnixDomainSocketAddress.of(args[0]);
+        File journal = args.length > 1 ? new File(args[1]) : null;
+        Main.serve(address, journal);
+    }
+
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Serves the sessions on the calling thread until the server is closed.
+     *
+     * @throws IOException in case of exceptions to the server socket
+     */
+    public void run() throws IOException {
+        try {
+            while (running) {
+                selector.select();
+                for (Session session = writable.poll(); session != null;
+                     session = writable.poll()) {
+                    session.flush();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Session session = (Session) key.attachment();
+                    if (key.isReadable()) {
+                        session.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        session.flush();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            if (address instanceof UnixDomainSocketAddress unix) {
+                Files.deleteIfExists(unix.getPath());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        for (SocketChannel channel = server.accept(); channel != null;
+             channel = server.accept()) {
+            channel.configureBlocking(false);
+            Session session = new Session(channel);
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        }
+    }
+
+    private ByteBuffer answer(final CommandInput command,
+                              final Function<CommandInput, ObjectNode> handler) {
+        ObjectNode output;
+        try {
+            output = handler.apply(command);
+            if (output == null) {
+                output = error("Invalid command " + command.getCommand());
+            }
+        } catch (RuntimeException e) {
+            output = error(String.valueOf(e.getMessage()));
+        }
+        return toLine(output);
+    }
+
+    private ByteBuffer toLine(final ObjectNode output) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = NEW_LINE;
+        return ByteBuffer.wrap(line);
+    }
+
+    private ObjectNode error(final String message) {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.put("error", message);
+        return error;
+    }
+
+    /**
+     * The answer to a command, filled in by the thread that ran it.
+     */
+    private static final class Response {
+        private volatile ByteBuffer line;
+    }
+
+    /**
+     * One client connection. Reading and writing happen on the selector thread; the
+     * threads running the commands only fill in responses and ask the selector to flush
+     * them. Responses are written in the order of the commands, even when a read served
+     * from a published answer finishes before an earlier write.
+     */
+    private final class Session {
+        private final SocketChannel channel;
+        private final Queue<Response> pending = new ArrayDeque<>();
+        private SelectionKey key;
+        private ByteArrayOutputStream partialLine;
+        private boolean closing;
+
+        Session(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            readBuffer.clear();
+            int read;
+            try {
+                read = channel.read(readBuffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                closing = true;
+                closeIfDone();
+                return;
+            }
+
+            readBuffer.flip();
+            int start = readBuffer.position();
+            for (int i = start; i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) == NEW_LINE) {
+                    if (partialLength() + i - start > MAX_LINE_LENGTH) {
+                        rejectLongLine();
+                        return;
+                    }
+                    submit(lineOf(start, i));
+                    start = i + 1;
+                }
+            }
+            if (start < readBuffer.limit()) {
+                if (partialLength() + readBuffer.limit() - start > MAX_LINE_LENGTH) {
+                    rejectLongLine();
+                    return;
+                }
+                if (partialLine == null) {
+                    partialLine = new ByteArrayOutputStream();
+                }
+                for (int i = start; i < readBuffer.limit(); i++) {
+                    partialLine.write(readBuffer.get(i));
+                }
+            }
+        }
+
+        private int partialLength() {
+            return partialLine == null ? 0 : partialLine.size();
+        }
+
+        /**
+         * Answers a line that outgrew MAX_LINE_LENGTH with an error and ends the session
+         * once the answers before it are written, dropping whatever the client sent after.
+         */
+        private void rejectLongLine() throws IOException {
+            partialLine = null;
+            closing = true;
+            Response response = new Response();
+            pending.add(response);
+            complete(response, toLine(error("Line longer than " + MAX_LINE_LENGTH
+                    + " bytes")));
+            closeIfDone();
+        }
+
+        private String lineOf(final int start, final int end) {
+            byte[] bytes = new byte[end - start];
+            readBuffer.get(start, bytes);
+            if (partialLine != null) {
+                partialLine.write(bytes, 0, bytes.length);
+                bytes = partialLine.toByteArray();
+                partialLine = null;
+            }
+            return new String(bytes, StandardCharsets.UTF_8).strip();
+        }
+
+        private void submit(final String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            Response response = new Response();
+            pending.add(response);
+            if (pending.size() >= MAX_IN_FLIGHT) {
+                // Stop reading until the engine catches up with this client.
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+
+            CommandInput command;
+            try {
+                command = objectMapper.readValue(line, CommandInput.class);
+            } catch (IOException e) {
+                complete(response, toLine(error(String.valueOf(e.getMessage()))));
+                return;
+            }
+            SnapshotReads.Answer published = reads == null ? null : reads.lookup(command);
+            if (published != null) {
+                reads.execute(() -> complete(response,
+                        answer(command, read -> reads.read(read, published))));
+                return;
+            }
+            Function<CommandInput, ObjectNode> handler = reads == null ? execute
+                    : reads.publishing(reads.received(command), execute);
+            engine.execute(() -> complete(response, answer(command, handler)));
+        }
+
+        private void complete(final Response response, final ByteBuffer line) {
+            response.line = line;
+            writable.add(this);
+            selector.wakeup();
+        }
+
+        void flush() throws IOException {
+            ByteBuffer line = null;
+            try {
+                while (!pending.isEmpty()) {
+                    line = pending.peek().line;
+                    if (line == null) {
+                        break;
+                    }
+                    channel.write(line);
+                    if (line.hasRemaining()) {
+                        break;
+                    }
+                    pending.poll();
+                    line = null;
+                }
+            } catch (IOException e) {
+                channel.close();
+                return;
+            }
+            if (!key.isValid()) {
+                return;
+            }
+            int ops = line == null ? 0 : SelectionKey.OP_WRITE;
+            if (!closing && pending.size() < MAX_IN_FLIGHT) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+            closeIfDone();
+        }
+
+        private void closeIfDone() throws IOException {
+            if (closing && pending.isEmpty()) {
+                channel.close();
+            } else if (closing && key.isValid()) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+    }
+}
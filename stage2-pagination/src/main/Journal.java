@@ -0,0 +1,272 @@
+package main;
+
+import app.Admin;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fileio.input.CommandInput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * The type Journal.
+ * A write-ahead log of the commands applied to the engine, one json line per command,
+ * plus snapshots of the whole Admin of the current thread taken every few commands.
+ * A snapshot records how many commands and how many bytes of the log it covers, so after
+ * a restart the engine is rebuilt from the newest snapshot and only the log after that
+ * offset is read and replayed. Without a readable snapshot the whole log is replayed.
+ * The log is forced to disk every syncInterval commands, and on every snapshot and on
+ * close: a crash of the process loses nothing, while a crash of the machine may lose
+ * the last commands of an unsynced group.
+ */
+public final class Journal implements Closeable {
+    public static final String LOG_FILE = "commands.log";
+    public static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int SNAPSHOT_VERSION = 5;
+    private static final int SCAN_BUFFER = 1 << 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final File directory;
+    private final int snapshotInterval;
+    private final int syncInterval;
+    private final FileOutputStream logStream;
+    private final OutputStream log;
+    private long logged;
+    private long logBytes;
+    private long snapshotCommands;
+    private long snapshotBytes;
+    private long replayFrom;
+
+    /**
+     * Opens the journal kept in a directory, creating it if needed, and forces the log to
+     * disk after every command.
+     *
+     * @param directory        the directory of the log and snapshot
+     * @param snapshotInterval the number of commands between two snapshots
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public Journal(final File directory, final int snapshotInterval) throws IOException {
+        this(directory, snapshotInterval, 1);
+    }
+
+    /**
+     * Opens the journal kept in a directory, creating it if needed.
+     * Only the part of the log after the newest snapshot is read, to count its commands
+     * and to cut off a torn last line left by a crash in the middle of an append.
+     *
+     * @param directory        the directory of the log and snapshot
+     * @param snapshotInterval the number of commands between two snapshots
+     * @param syncInterval     the number of commands between two syncs of the log
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public Journal(final File directory, final int snapshotInterval,
+                   final int syncInterval) throws IOException {
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        this.syncInterval = syncInterval;
+        Files.createDirectories(directory.toPath());
+        readSnapshotHeader();
+        File logFile = new File(directory, LOG_FILE);
+        long length = logFile.isFile() ? logFile.length() : 0;
+        if (snapshotBytes > length) {
+            throw new IOException("The log in " + directory + " is shorter than its snapshot");
+        }
+        logged = snapshotCommands;
+        logBytes = snapshotBytes;
+        scanTail(logFile);
+        logStream = new FileOutputStream(logFile, true);
+        log = new BufferedOutputStream(logStream);
+    }
+
+    /**
+     * Appends a command to the log before it is applied, taking a snapshot when due.
+     * The snapshot is taken before the command, so it covers exactly the commands
+     * logged before it.
+     *
+     * @param command the command
+     * @throws IOException in case of exceptions to writing
+     */
+    public void append(final CommandInput command) throws IOException {
+        if (logged > 0 && logged % snapshotInterval == 0) {
+            snapshot();
+        }
+        byte[] json = objectMapper.writeValueAsBytes(command);
+        log.write(json);
+        log.write('\n');
+        log.flush();
+        logged++;
+        logBytes += json.length + 1;
+        if (logged % syncInterval == 0) {
+            logStream.getFD().sync();
+        }
+    }
+
+    /**
+     * Forces the logged commands to disk.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    public void sync() throws IOException {
+        log.flush();
+        logStream.getFD().sync();
+    }
+
+    /**
+     * Writes a snapshot of the Admin of the current thread, replacing the previous one
+     * only once the new one is complete on disk.
+     *
+     * @throws IOException in case of exceptions to writing
+     */
+    public void snapshot() throws IOException {
+        sync();
+        File temporary = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary);
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(logged);
+            out.writeLong(logBytes);
+            out.writeObject(Admin.getInstance());
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary.toPath(), new File(directory, SNAPSHOT_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotCommands = logged;
+        snapshotBytes = logBytes;
+    }
+
+    /**
+     * Restores the newest snapshot into the current thread.
+     * A snapshot that can't be read, for example one written by an incompatible version
+     * of the classes, is ignored, and replay then starts from the beginning of the log.
+     *
+     * @return true if a snapshot was restored, false if the engine has to be rebuilt
+     *         from the library before the replay
+     */
+    public boolean restoreSnapshot() {
+        replayFrom = 0;
+        File snapshot = new File(directory, SNAPSHOT_FILE);
+        if (snapshotBytes == 0 && snapshotCommands == 0 || !snapshot.isFile()) {
+            return false;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(snapshot)))) {
+            in.readInt();
+            in.readLong();
+            in.readLong();
+            Admin.restore((Admin) in.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Ignoring unreadable snapshot " + snapshot + ": " + e);
+            return false;
+        }
+        replayFrom = snapshotBytes;
+        return true;
+    }
+
+    /**
+     * Replays the commands logged after the restored snapshot, or the whole log if none
+     * was restored.
+     * A command that fails is logged before it fails, and it fails the same way, leaving
+     * the same changes, when it is replayed, so the replay goes on with the next one.
+     *
+     * @param replay applies a command to the engine
+     * @return the number of commands replayed from the log
+     * @throws IOException in case of exceptions to reading
+     */
+    public long replay(final Consumer<CommandInput> replay) throws IOException {
+        File logFile = new File(directory, LOG_FILE);
+        if (!logFile.isFile()) {
+            return 0;
+        }
+        long replayed = 0;
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(
+                     channel.position(replayFrom), StandardCharsets.UTF_8))) {
+            for (String json = reader.readLine(); json != null; json = reader.readLine()) {
+                if (json.isEmpty()) {
+                    continue;
+                }
+                CommandInput command = objectMapper.readValue(json, CommandInput.class);
+                replayed++;
+                try {
+                    replay.accept(command);
+                } catch (RuntimeException e) {
+                    // It failed the same way when it was first applied.
+                }
+            }
+        }
+        return replayed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        log.close();
+    }
+
+    /**
+     * Reads how much of the log the newest snapshot covers, without reading the engine
+     * it holds. A missing snapshot, or one of another version, covers nothing.
+     */
+    private void readSnapshotHeader() {
+        File snapshot = new File(directory, SNAPSHOT_FILE);
+        if (!snapshot.isFile()) {
+            return;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(snapshot)))) {
+            if (in.readInt() == SNAPSHOT_VERSION) {
+                snapshotCommands = in.readLong();
+                snapshotBytes = in.readLong();
+            }
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable snapshot " + snapshot + ": " + e);
+        }
+    }
+
+    /**
+     * Counts the complete lines of the log after the snapshot and cuts off a torn last
+     * line, so the next command starts on a line of its own.
+     */
+    private void scanTail(final File file) throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+            long position = logBytes;
+            channel.position(position);
+            for (int read = channel.read(buffer); read != -1; read = channel.read(buffer)) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position++;
+                    if (buffer.get() == '\n') {
+                        logged++;
+                        logBytes = position;
+                    }
+                }
+                buffer.clear();
+            }
+            if (logBytes < channel.size()) {
+                channel.truncate(logBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package main;
+
+import app.SharedLibrary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fileio.input.EpisodeInput;
+import fileio.input.LibraryInput;
+import fileio.input.PodcastInput;
+import fileio.input.SongInput;
+import fileio.input.UserInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The type Library cache.
+ * Parses each library file once per process and shares the result between all the
+ * replays, including replays running in parallel. Equal strings and equal tag lists
+ * are deduplicated while loading, so the songs built from the library share them too.
+ * If a LibraryCatalog written after the json file sits next to it, the library is
+ * mapped from the catalog instead of being parsed. A catalog that can't be read is
+ * written again from the json file.
+ * Each library is also built once, see SharedLibrary, so a replay only builds its own
+ * songs and users instead of the podcasts and the whole song index.
+ * The cached library is read only: Admin copies what it needs into its own objects.
+ */
+final class LibraryCache {
+    private static final Map<Key, SharedLibrary> LIBRARIES = new ConcurrentHashMap<>();
+
+    private record Key(String path, long lastModified, long length) {
+    }
+
+    private LibraryCache() {
+    }
+
+    /**
+     * Gets a library, parsing and building it only if it wasn't loaded before or changed since.
+     *
+     * @param objectMapper the mapper used to parse the library
+     * @param file         the library file
+     * @return the library
+     * @throws IOException in case of exceptions to reading
+     */
+    static SharedLibrary load(final ObjectMapper objectMapper,
+                             final File file) throws IOException {
+        File catalog = LibraryCatalog.catalogOf(file);
+        boolean useCatalog = catalog.isFile() && catalog.lastModified() >= file.lastModified();
+        File source = useCatalog ? catalog : file;
+        Key key = new Key(source.getCanonicalPath(), source.lastModified(), source.length());
+        try {
+            return LIBRARIES.computeIfAbsent(key, k -> {
+                try {
+                    if (useCatalog) {
+                        try {
+                            return new SharedLibrary(LibraryCatalog.read(catalog));
+                        } catch (IOException e) {
+                            return new SharedLibrary(rebuildCatalog(objectMapper, file));
+                        }
+                    }
+                    return new SharedLibrary(deduplicate(
+                            objectMapper.readValue(file, LibraryInput.class)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses a library whose catalog can't be read, because it is truncated, corrupt or
+     * of an older version, and writes the catalog again from it.
+     */
+    private static LibraryInput rebuildCatalog(final ObjectMapper objectMapper,
+                                               final File file) throws IOException {
+        LibraryInput library = deduplicate(objectMapper.readValue(file, LibraryInput.class));
+        LibraryCatalog.write(library, LibraryCatalog.catalogOf(file));
+        return library;
+    }
+
+    private static LibraryInput deduplicate(final LibraryInput library) {
+        Map<String, String> strings = new HashMap<>();
+        Map<List<String>, ArrayList<String>> tagLists = new HashMap<>();
+
+        for (SongInput song : library.getSongs()) {
+            song.setName(intern(strings, song.getName()));
+            song.setAlbum(intern(strings, song.getAlbum()));
+            song.setLyrics(intern(strings, song.getLyrics()));
+            song.setGenre(intern(strings, song.getGenre()));
+            song.setArtist(intern(strings, song.getArtist()));
+            if (song.getTags() != null) {
+                ArrayList<String> tags = new ArrayList<>(song.getTags().size());
+                for (String tag : song.getTags()) {
+                    tags.add(intern(strings, tag));
+                }
+                song.setTags(tagLists.computeIfAbsent(tags, t -> tags));
+            }
+        }
+        for (PodcastInput podcast : library.getPodcasts()) {
+            podcast.setName(intern(strings, podcast.getName()));
+            podcast.setOwner(intern(strings, podcast.getOwner()));
+            for (EpisodeInput episode : podcast.getEpisodes()) {
+                episode.setName(intern(strings, episode.getName()));
+                episode.setDescription(intern(strings, episode.getDescription()));
+            }
+        }
+        for (UserInput user : library.getUsers()) {
+            user.setUsername(intern(strings, user.getUsername()));
+            user.setCity(intern(strings, user.getCity()));
+        }
+        return library;
+    }
+
+    private static String intern(final Map<String, String> strings, final String value) {
+        return value == null ? null : strings.computeIfAbsent(value, v -> v);
+    }
+}
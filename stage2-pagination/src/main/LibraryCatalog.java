@@ -0,0 +1,442 @@
+package main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fileio.input.EpisodeInput;
+import fileio.input.LibraryInput;
+import fileio.input.PodcastInput;
+import fileio.input.SongInput;
+import fileio.input.UserInput;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type Library catalog.
+ * A compact binary form of library.json, read by memory mapping the file instead of
+ * running Jackson over every song, podcast and episode.
+ * The file holds a header with the counts, a table of distinct strings, fixed-width
+ * records for songs, episodes, podcasts and users, and the runs of tag string ids the
+ * song records point to. Every distinct string is decoded once, straight from the
+ * mapping, the first time a record refers to it, and songs with the same tags share one
+ * tag list. String offsets are longs and the file is mapped in chunks, so a catalog may
+ * be larger than the 2 GB a single mapping can hold.
+ * Run this class with a library.json path to write the catalog next to it.
+ */
+public final class LibraryCatalog {
+    public static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x53504C42;
+    private static final int VERSION = 2;
+    private static final int HEADER_INTS = 8;
+    private static final int NONE = -1;
+    private static final int NULL_NUMBER = Integer.MIN_VALUE;
+    private static final int SONG_WIDTH = 9;
+    private static final int EPISODE_WIDTH = 3;
+    private static final int PODCAST_WIDTH = 4;
+    private static final int USER_WIDTH = 3;
+    private static final long CHUNK = 1L << 30;
+
+    private LibraryCatalog() {
+    }
+
+    /**
+     * Writes the catalog of a library.json file next to it.
+     *
+     * @param args the path of the library.json file
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        File json = new File(args[0]);
+        LibraryInput library = new ObjectMapper().readValue(json, LibraryInput.class);
+        write(library, catalogOf(json));
+    }
+
+    /**
+     * Gets the catalog file that belongs to a library.json file.
+     *
+     * @param json the library.json file
+     * @return the catalog file
+     */
+    public static File catalogOf(final File json) {
+        return new File(json.getPath() + EXTENSION);
+    }
+
+    /**
+     * Writes a library as a catalog.
+     * The catalog is written to a temporary file next to it first and then renamed over
+     * it, so a reader sees either the old catalog or the whole new one.
+     *
+     * @param library the library
+     * @param file    the catalog file
+     * @throws IOException in case of exceptions to writing
+     */
+    public static void write(final LibraryInput library, final File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            writeTo(library, temporary);
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private static void writeTo(final LibraryInput library, final File file) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Map<List<String>, Integer> tagRuns = new HashMap<>();
+        List<Integer> tagIds = new ArrayList<>();
+        int episodeCount = 0;
+        for (PodcastInput podcast : library.getPodcasts()) {
+            episodeCount += podcast.getEpisodes().size();
+        }
+
+        try (FileOutputStream fileOut = new FileOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            // Strings and tag runs are collected first, so records can refer to them.
+            int[][] songRecords = new int[library.getSongs().size()][];
+            for (int i = 0; i < songRecords.length; i++) {
+                SongInput song = library.getSongs().get(i);
+                int tagsStart = NONE;
+                int tagsCount = 0;
+                if (song.getTags() != null) {
+                    tagsCount = song.getTags().size();
+                    tagsStart = tagRuns.computeIfAbsent(song.getTags(), tags -> {
+                        int start = tagIds.size();
+                        for (String tag : tags) {
+                            tagIds.add(idOf(stringIds, strings, tag));
+                        }
+                        return start;
+                    });
+                }
+                songRecords[i] = new int[] {idOf(stringIds, strings, song.getName()),
+                        numberOf(song.getDuration()), idOf(stringIds, strings, song.getAlbum()),
+                        idOf(stringIds, strings, song.getLyrics()),
+                        idOf(stringIds, strings, song.getGenre()),
+                        numberOf(song.getReleaseYear()),
+                        idOf(stringIds, strings, song.getArtist()), tagsStart, tagsCount};
+            }
+            List<int[]> episodeRecords = new ArrayList<>();
+            List<int[]> podcastRecords = new ArrayList<>();
+            for (PodcastInput podcast : library.getPodcasts()) {
+                podcastRecords.add(new int[] {idOf(stringIds, strings, podcast.getName()),
+                        idOf(stringIds, strings, podcast.getOwner()), episodeRecords.size(),
+                        podcast.getEpisodes().size()});
+                for (EpisodeInput episode : podcast.getEpisodes()) {
+                    episodeRecords.add(new int[] {idOf(stringIds, strings, episode.getName()),
+                            numberOf(episode.getDuration()),
+                            idOf(stringIds, strings, episode.getDescription())});
+                }
+            }
+            List<int[]> userRecords = new ArrayList<>();
+            for (UserInput user : library.getUsers()) {
+                userRecords.add(new int[] {idOf(stringIds, strings, user.getUsername()),
+                        user.getAge(), idOf(stringIds, strings, user.getCity())});
+            }
+
+            List<byte[]> encoded = new ArrayList<>();
+            for (String string : strings) {
+                encoded.add(string.getBytes(StandardCharsets.UTF_8));
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(songRecords.length);
+            out.writeInt(episodeCount);
+            out.writeInt(podcastRecords.size());
+            out.writeInt(userRecords.size());
+            out.writeInt(tagIds.size());
+
+            long offset = 0;
+            for (byte[] bytes : encoded) {
+                out.writeLong(offset);
+                offset += bytes.length;
+            }
+            out.writeLong(offset);
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+            for (int[] record : songRecords) {
+                writeRecord(out, record);
+            }
+            for (int[] record : episodeRecords) {
+                writeRecord(out, record);
+            }
+            for (int[] record : podcastRecords) {
+                writeRecord(out, record);
+            }
+            for (int[] record : userRecords) {
+                writeRecord(out, record);
+            }
+            for (int tagId : tagIds) {
+                out.writeInt(tagId);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    /**
+     * Reads a library from a catalog.
+     *
+     * @param file the catalog file
+     * @return the library
+     * @throws IOException in case of exceptions to reading, or if the file is not a
+     *                     catalog, is truncated or is corrupt
+     */
+    public static LibraryInput read(final File file) throws IOException {
+        Mapping mapping;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mapping = new Mapping(channel);
+        }
+        if (mapping.size() < HEADER_INTS * Integer.BYTES
+                || mapping.getInt() != MAGIC || mapping.getInt() != VERSION) {
+            throw new IOException(file + " is not a library catalog");
+        }
+        try {
+            return read(file, mapping);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException
+                 | NegativeArraySizeException | BufferUnderflowException e) {
+            throw new IOException(file + " is a corrupt library catalog", e);
+        }
+    }
+
+    private static LibraryInput read(final File file, final Mapping mapping) throws IOException {
+        int stringCount = mapping.getInt();
+        int songCount = mapping.getInt();
+        int episodeCount = mapping.getInt();
+        int podcastCount = mapping.getInt();
+        int userCount = mapping.getInt();
+        int tagCount = mapping.getInt();
+
+        long offsetsStart = mapping.position();
+        long bytesStart = offsetsStart + (stringCount + 1L) * Long.BYTES;
+        if (bytesStart > mapping.size()) {
+            throw new IOException(file + " is a truncated library catalog");
+        }
+        StringTable strings = new StringTable(mapping, stringCount, offsetsStart, bytesStart);
+        long songsStart = bytesStart + mapping.getLong(bytesStart - Long.BYTES);
+        long episodesStart = songsStart + (long) songCount * SONG_WIDTH * Integer.BYTES;
+        long podcastsStart = episodesStart + (long) episodeCount * EPISODE_WIDTH * Integer.BYTES;
+        long usersStart = podcastsStart + (long) podcastCount * PODCAST_WIDTH * Integer.BYTES;
+        long tagsStart = usersStart + (long) userCount * USER_WIDTH * Integer.BYTES;
+        if (tagsStart + (long) tagCount * Integer.BYTES != mapping.size()) {
+            throw new IOException(file + " is a truncated library catalog");
+        }
+
+        int[] tagIds = new int[tagCount];
+        mapping.position(tagsStart);
+        for (int i = 0; i < tagCount; i++) {
+            tagIds[i] = mapping.getInt();
+        }
+
+        Map<Integer, ArrayList<String>> tagLists = new HashMap<>();
+        ArrayList<SongInput> songs = new ArrayList<>(songCount);
+        mapping.position(songsStart);
+        for (int i = 0; i < songCount; i++) {
+            SongInput song = new SongInput();
+            song.setName(strings.get(mapping.getInt()));
+            song.setDuration(integerOf(mapping.getInt()));
+            song.setAlbum(strings.get(mapping.getInt()));
+            song.setLyrics(strings.get(mapping.getInt()));
+            song.setGenre(strings.get(mapping.getInt()));
+            song.setReleaseYear(integerOf(mapping.getInt()));
+            song.setArtist(strings.get(mapping.getInt()));
+            int start = mapping.getInt();
+            int count = mapping.getInt();
+            if (start != NONE) {
+                song.setTags(tagLists.computeIfAbsent(start, s -> {
+                    ArrayList<String> tags = new ArrayList<>(count);
+                    for (int j = s; j < s + count; j++) {
+                        tags.add(strings.get(tagIds[j]));
+                    }
+                    return tags;
+                }));
+            }
+            songs.add(song);
+        }
+
+        List<EpisodeInput> episodes = new ArrayList<>(episodeCount);
+        for (int i = 0; i < episodeCount; i++) {
+            EpisodeInput episode = new EpisodeInput();
+            episode.setName(strings.get(mapping.getInt()));
+            episode.setDuration(integerOf(mapping.getInt()));
+            episode.setDescription(strings.get(mapping.getInt()));
+            episodes.add(episode);
+        }
+
+        ArrayList<PodcastInput> podcasts = new ArrayList<>(podcastCount);
+        for (int i = 0; i < podcastCount; i++) {
+            PodcastInput podcast = new PodcastInput();
+            podcast.setName(strings.get(mapping.getInt()));
+            podcast.setOwner(strings.get(mapping.getInt()));
+            int start = mapping.getInt();
+            int count = mapping.getInt();
+            podcast.setEpisodes(new ArrayList<>(episodes.subList(start, start + count)));
+            podcasts.add(podcast);
+        }
+
+        ArrayList<UserInput> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            UserInput user = new UserInput();
+            user.setUsername(strings.get(mapping.getInt()));
+            user.setAge(mapping.getInt());
+            user.setCity(strings.get(mapping.getInt()));
+            users.add(user);
+        }
+
+        LibraryInput library = new LibraryInput();
+        library.setSongs(songs);
+        library.setPodcasts(podcasts);
+        library.setUsers(users);
+        return library;
+    }
+
+    private static int idOf(final Map<String, Integer> ids, final List<String> strings,
+                            final String value) {
+        if (value == null) {
+            return NONE;
+        }
+        return ids.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    private static int numberOf(final Integer value) {
+        return value == null ? NULL_NUMBER : value;
+    }
+
+    private static Integer integerOf(final int value) {
+        return value == NULL_NUMBER ? null : value;
+    }
+
+    private static void writeRecord(final DataOutputStream out,
+                                    final int[] record) throws IOException {
+        for (int value : record) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * A read-only mapping of a whole file, in chunks of at most CHUNK bytes, read at long
+     * positions.
+     */
+    private static final class Mapping {
+        private final MappedByteBuffer[] chunks;
+        private final long size;
+        private long position;
+
+        Mapping(final FileChannel channel) throws IOException {
+            size = channel.size();
+            chunks = new MappedByteBuffer[(int) ((size + CHUNK - 1) / CHUNK)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * CHUNK;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(CHUNK, size - start));
+            }
+        }
+
+        long size() {
+            return size;
+        }
+
+        long position() {
+            return position;
+        }
+
+        void position(final long newPosition) {
+            position = newPosition;
+        }
+
+        int getInt() {
+            int value = getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        int getInt(final long at) {
+            int chunk = (int) (at / CHUNK);
+            int offset = (int) (at % CHUNK);
+            if (offset + Integer.BYTES <= chunks[chunk].limit()) {
+                return chunks[chunk].getInt(offset);
+            }
+            byte[] bytes = new byte[Integer.BYTES];
+            get(at, bytes);
+            int value = 0;
+            for (byte b : bytes) {
+                value = value << Byte.SIZE | b & 0xFF;
+            }
+            return value;
+        }
+
+        long getLong(final long at) {
+            return (long) getInt(at) << Integer.SIZE | getInt(at + Integer.BYTES) & 0xFFFFFFFFL;
+        }
+
+        void get(final long at, final byte[] into) {
+            int done = 0;
+            while (done < into.length) {
+                int chunk = (int) ((at + done) / CHUNK);
+                int offset = (int) ((at + done) % CHUNK);
+                int length = Math.min(into.length - done, chunks[chunk].limit() - offset);
+                if (length <= 0) {
+                    throw new IndexOutOfBoundsException("Read past the end of the catalog");
+                }
+                chunks[chunk].get(offset, into, done, length);
+                done += length;
+            }
+        }
+    }
+
+    /**
+     * The strings of a catalog, each decoded from the mapping the first time it is asked
+     * for, so that no copy of the whole table is made on the heap.
+     */
+    private static final class StringTable {
+        private final Mapping mapping;
+        private final long offsetsStart;
+        private final long bytesStart;
+        private final String[] decoded;
+
+        StringTable(final Mapping mapping, final int count, final long offsetsStart,
+                    final long bytesStart) {
+            this.mapping = mapping;
+            this.offsetsStart = offsetsStart;
+            this.bytesStart = bytesStart;
+            this.decoded = new String[count];
+        }
+
+        String get(final int id) {
+            if (id == NONE) {
+                return null;
+            }
+            if (decoded[id] == null) {
+                long from = mapping.getLong(offsetsStart + (long) id * Long.BYTES);
+                long to = mapping.getLong(offsetsStart + (id + 1L) * Long.BYTES);
+                if (from < 0 || to < from || to - from > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Bad offsets for string " + id);
+                }
+                byte[] bytes = new byte[(int) (to - from)];
+                mapping.get(bytesStart + from, bytes);
+                decoded[id] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return decoded[id];
+        }
+    }
+}
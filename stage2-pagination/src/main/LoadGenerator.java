@@ -0,0 +1,109 @@
+package main;
+
+import app.CommandMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Load generator.
+ * Drives a CommandServer the way a crowd of listeners would: many idle sessions that
+ * only stay connected, and a few active sessions that each send the commands of an input
+ * file one at a time, waiting for every answer. Prints the latency percentiles of the
+ * active requests, measured on the client side.
+ */
+public final class LoadGenerator {
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load.
+     *
+     * @param args the port or socket path of the server, the number of idle sessions,
+     *             the number of active sessions and the input file of the commands
+     * @throws IOException          in case of exceptions to reading / writing
+     * @throws InterruptedException if interrupted while waiting for the active sessions
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        SocketAddress address = args[0].chars().allMatch(Character::isDigit)
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(args[0]))
+                : UnixDomainSocketAddress.of(args[0]);
+        int idleSessions = Integer.parseInt(args[1]);
+        int activeSessions = Integer.parseInt(args[2]);
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<byte[]> commands = new ArrayList<>();
+        for (JsonNode command : objectMapper.readTree(new File(args[3]))) {
+            commands.add((objectMapper.writeValueAsString(command) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<SocketChannel> idle = new ArrayList<>();
+        try {
+            for (int i = 0; i < idleSessions; i++) {
+                idle.add(SocketChannel.open(address));
+            }
+
+            CommandMetrics metrics = new CommandMetrics("loopback");
+            List<Thread> active = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < activeSessions; i++) {
+                Thread thread = new Thread(() -> send(address, commands, metrics));
+                thread.start();
+                active.add(thread);
+            }
+            for (Thread thread : active) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%d idle, %d active, %d requests in %d ms%n", idleSessions,
+                    activeSessions, metrics.getCount(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            System.out.printf("p50 %d us, p99 %d us, max %d us%n",
+                    TimeUnit.NANOSECONDS.toMicros(metrics.getPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(metrics.getPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(metrics.getMaxNanos()));
+        } finally {
+            for (SocketChannel channel : idle) {
+                channel.close();
+            }
+        }
+    }
+
+    private static void send(final SocketAddress address, final List<byte[]> commands,
+                             final CommandMetrics metrics) {
+        try (SocketChannel channel = SocketChannel.open(address);
+             BufferedReader answers = new BufferedReader(new InputStreamReader(
+                     Channels.newInputStream(channel), StandardCharsets.UTF_8))) {
+            for (byte[] command : commands) {
+                long start = System.nanoTime();
+                ByteBuffer request = ByteBuffer.wrap(command);
+                while (request.hasRemaining()) {
+                    channel.write(request);
+                }
+                if (answers.readLine() == null) {
+                    return;
+                }
+                metrics.record(System.nanoTime() - start, -1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
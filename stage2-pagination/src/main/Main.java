@@ -1,26 +1,51 @@
 package main;
 
 import app.Admin;
-import app.CommandRunner;
+import app.CommandRegistry;
+import app.SharedLibrary;
 import checker.Checker;
 import checker.CheckerConstants;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import fileio.input.CommandInput;
-import fileio.input.LibraryInput;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implentation.
  */
 public final class Main {
+    private static final int SNAPSHOT_INTERVAL = 10000;
+    /**
+     * Group commit of the served journal: the log is forced to disk once every this many
+     * commands, so a power loss may drop at most the last group, never a torn line.
+     */
+    private static final int JOURNAL_SYNC_INTERVAL = 32;
+
     /**
      * for coding style
      */
@@ -62,6 +87,41 @@ public final class Main {
         Checker.calculateScore();
     }
 
+    /**
+     * Replays many input files in parallel, each on its own thread with its own Admin.
+     * The output of every input is written to the result directory, the same way main
+     * does it sequentially.
+     *
+     * @param inputs      the names of the input files
+     * @param parallelism the number of threads
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void actionAll(final List<String> inputs,
+                                 final int parallelism) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+            for (String input : inputs) {
+                tasks.add(pool.submit(() -> {
+                    action(input, CheckerConstants.OUT_PATH + input);
+                    return null;
+                }));
+            }
+            for (ForkJoinTask<Void> task : tasks) {
+                task.join();
+            }
+        } catch (RuntimeException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException ioException) {
+                    throw ioException;
+                }
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * @param filePath1 for input file
      * @param filePath2 for output file
@@ -69,76 +129,206 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
+        action(filePath1, filePath2, true);
+    }
+
+    /**
+     * Runs the commands of an input file, streaming them one at a time.
+     * Each command is read, executed and its output written before the next one is read,
+     * so memory does not grow with the number of commands.
+     *
+     * @param filePath1 for input file
+     * @param filePath2 for output file
+     * @param pretty    whether the output is pretty printed
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void action(final String filePath1, final String filePath2,
+                              final boolean pretty) throws IOException {
+        action(filePath1, filePath2, pretty, 1);
+    }
+
+    /**
+     * Runs the commands of an input file, spreading the commands of different users over
+     * several shards. The output is the same as the one of a sequential run.
+     *
+     * @param filePath1 for input file
+     * @param filePath2 for output file
+     * @param pretty    whether the output is pretty printed
+     * @param shards    the number of shards, 1 to run every command on this thread
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void action(final String filePath1, final String filePath2,
+                              final boolean pretty, final int shards) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper();
-        LibraryInput library = objectMapper.readValue(new File(CheckerConstants.TESTS_PATH
-                                                               + "library/library.json"),
-                                                               LibraryInput.class);
-        CommandInput[] commands = objectMapper.readValue(new File(CheckerConstants.TESTS_PATH
-                                                                  + filePath1),
-                                                                  CommandInput[].class);
-        ArrayNode outputs = objectMapper.createArrayNode();
+        loadLibrary(objectMapper);
+        ShardedEngine engine = shards > 1 ? new ShardedEngine(shards, Main::execute) : null;
 
-        Admin.getInstance().setUsers(library.getUsers());
-        Admin.getInstance().setSongs(library.getSongs());
-        Admin.getInstance().setPodcasts(library.getPodcasts());
-
-        for (CommandInput command : commands) {
-            Admin.getInstance().updateTimestamp(command.getTimestamp());
-
-            String commandName = command.getCommand();
-
-            switch (commandName) {
-                case "search" -> outputs.add(CommandRunner.search(command));
-                case "select" -> outputs.add(CommandRunner.select(command));
-                case "load" -> outputs.add(CommandRunner.load(command));
-                case "playPause" -> outputs.add(CommandRunner.playPause(command));
-                case "repeat" -> outputs.add(CommandRunner.repeat(command));
-                case "shuffle" -> outputs.add(CommandRunner.shuffle(command));
-                case "forward" -> outputs.add(CommandRunner.forward(command));
-                case "backward" -> outputs.add(CommandRunner.backward(command));
-                case "like" -> outputs.add(CommandRunner.like(command));
-                case "next" -> outputs.add(CommandRunner.next(command));
-                case "prev" -> outputs.add(CommandRunner.prev(command));
-                case "createPlaylist" -> outputs.add(CommandRunner.createPlaylist(command));
-                case "addRemoveInPlaylist" ->
-                        outputs.add(CommandRunner.addRemoveInPlaylist(command));
-                case "switchVisibility" -> outputs.add(CommandRunner.switchVisibility(command));
-                case "showPlaylists" -> outputs.add(CommandRunner.showPlaylists(command));
-                case "follow" -> outputs.add(CommandRunner.follow(command));
-                case "status" -> outputs.add(CommandRunner.status(command));
-                case "showPreferredSongs" -> outputs.add(CommandRunner.showLikedSongs(command));
-                case "getPreferredGenre" -> outputs.add(CommandRunner.getPreferredGenre(command));
-                case "getTop5Songs" -> outputs.add(CommandRunner.getTop5Songs(command));
-                case "getTop5Playlists" -> outputs.add(CommandRunner.getTop5Playlists(command));
-                case "switchConnectionStatus" ->
-                        outputs.add(CommandRunner.switchConnectionStatus(command));
-                case "getOnlineUsers" -> outputs.add(CommandRunner.getOnlineUsers(command));
-                case "addUser" -> outputs.add(CommandRunner.addUser(command));
-                case "deleteUser" -> outputs.add(CommandRunner.deleteUser(command));
-                case "addAlbum" -> outputs.add(CommandRunner.addAlbum(command));
-                case "removeAlbum" -> outputs.add(CommandRunner.removeAlbum(command));
-                case "showAlbums" -> outputs.add(CommandRunner.showAlbums(command));
-                case "printCurrentPage" -> outputs.add(CommandRunner.printCurrentPage(command));
-                case "addEvent" -> outputs.add(CommandRunner.addEvent(command));
-                case "removeEvent" -> outputs.add(CommandRunner.removeEvent(command));
-                case "addMerch" -> outputs.add(CommandRunner.addMerch(command));
-                case "getAllUsers" -> outputs.add(CommandRunner.getAllUsers(command));
-                case "addPodcast" -> outputs.add(CommandRunner.addPodcast(command));
-                case "removePodcast" -> outputs.add(CommandRunner.removePodcast(command));
-                case "addAnnouncement" -> outputs.add(CommandRunner.addAnnouncement(command));
-                case "removeAnnouncement" ->
-                        outputs.add(CommandRunner.removeAnnouncement(command));
-                case "showPodcasts" -> outputs.add(CommandRunner.showPodcasts(command));
-                case "changePage" -> outputs.add(CommandRunner.changePage(command));
-                case "getTop5Albums" -> outputs.add(CommandRunner.getTop5Albums(command));
-                case "getTop5Artists" -> outputs.add(CommandRunner.getTop5Artists(command));
-                default -> System.out.println("Invalid command " + commandName);
+        JsonFactory factory = objectMapper.getFactory();
+        try (JsonParser parser = factory.createParser(new File(CheckerConstants.TESTS_PATH
+                                                               + filePath1));
+             JsonGenerator generator = factory.createGenerator(new File(filePath2),
+                                                               JsonEncoding.UTF8)) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            }
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of commands in " + filePath1);
+            }
+
+            generator.writeStartArray();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                CommandInput command = objectMapper.readValue(parser, CommandInput.class);
+                if (engine == null) {
+                    ObjectNode output = execute(command);
+                    if (output != null) {
+                        generator.writeTree(output);
+                    }
+                    continue;
+                }
+                for (ObjectNode output : engine.submit(command)) {
+                    generator.writeTree(output);
+                }
+            }
+            if (engine != null) {
+                for (ObjectNode output : engine.flush()) {
+                    generator.writeTree(output);
+                }
+            }
+            generator.writeEndArray();
+        } finally {
+            if (engine != null) {
+                engine.close();
             }
+            if (CommandRegistry.isMetricsEnabled()) {
+                // One print per input, so reports of parallel replays do not interleave.
+                ByteArrayOutputStream report = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(report, true, StandardCharsets.UTF_8);
+                out.println("Command metrics for " + filePath1);
+                CommandRegistry.dumpMetrics(out);
+                System.err.print(report.toString(StandardCharsets.UTF_8));
+                CommandRegistry.resetMetrics();
+            }
+            Admin.getInstance().reset();
+        }
+    }
+
+    /**
+     * Restores the engine of the current thread from a journal. Without a snapshot that
+     * can be read the engine starts from the library, then the logged commands are
+     * replayed on top.
+     *
+     * @param journal the journal
+     * @return the number of commands replayed from the log
+     * @throws IOException in case of exceptions to reading
+     */
+    public static long resume(final Journal journal) throws IOException {
+        if (!journal.restoreSnapshot()) {
+            loadLibrary(new ObjectMapper());
         }
+        return journal.replay(Main::execute);
+    }
+
+    /**
+     * Logs a command to a journal, then executes it.
+     *
+     * @param command the command
+     * @param journal the journal
+     * @return the output of the command, or null if the command is unknown
+     * @throws IOException in case of exceptions to writing
+     */
+    public static ObjectNode execute(final CommandInput command,
+                                     final Journal journal) throws IOException {
+        journal.append(command);
+        return execute(command);
+    }
 
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), outputs);
+    /**
+     * Serves the engine over a socket until the server is closed, see CommandServer.
+     * The engine runs on a thread of its own, which loads the library, or resumes from
+     * the journal when one is given, before the first session is accepted. When there are
+     * reader threads, see SnapshotReads, the reads are served from the answers it published.
+     *
+     * @param address          the address to listen on
+     * @param journalDirectory the directory of the journal, or null to serve without one
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void serve(final SocketAddress address,
+                             final File journalDirectory) throws IOException {
+        ExecutorService engine = Executors.newSingleThreadExecutor();
+        Journal journal = journalDirectory == null ? null
+                : new Journal(journalDirectory, SNAPSHOT_INTERVAL, JOURNAL_SYNC_INTERVAL);
+        int readers = SnapshotReads.configuredThreads();
+        SnapshotReads reads = readers > 0 ? new SnapshotReads(readers) : null;
+        try {
+            engine.submit(() -> {
+                if (journal == null) {
+                    loadLibrary(new ObjectMapper());
+                } else {
+                    resume(journal);
+                }
+                return null;
+            }).get();
 
-        Admin.getInstance().reset();
+            Function<CommandInput, ObjectNode> run = Main::execute;
+            if (journal != null) {
+                run = command -> {
+                    try {
+                        return execute(command, journal);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+            }
+            try (CommandServer server = new CommandServer(address, engine, run,
+                    reads)) {
+                server.run();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (reads != null) {
+                reads.close();
+            }
+            engine.shutdown();
+            if (journal != null) {
+                try {
+                    engine.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                journal.close();
+            }
+        }
+    }
+
+    private static void loadLibrary(final ObjectMapper objectMapper) throws IOException {
+        SharedLibrary library = LibraryCache.load(objectMapper,
+                new File(CheckerConstants.TESTS_PATH + "library/library.json"));
+
+        Admin.getInstance().setUsers(library.getUsers());
+        Admin.getInstance().setLibrary(library);
+    }
+
+    /**
+     * Executes a command.
+     *
+     * @param command the command
+     * @return the output of the command, or null if the command is unknown
+     */
+    private static ObjectNode execute(final CommandInput command) {
+        Admin.getInstance().updateTimestamp(command.getTimestamp());
+
+        String commandName = command.getCommand();
+
+        if (!CommandRegistry.contains(commandName)) {
+            System.out.println("Invalid command " + commandName);
+            return null;
+        }
+        return CommandRegistry.dispatch(command);
     }
 }
@@ -0,0 +1,82 @@
+package main;
+
+import checker.CheckerConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The type Parallel replay check.
+ * Replays every input of the tests directory one after another, then all of them at once
+ * with Main.actionAll, and checks that every input gave the same output both times.
+ * An input whose sequential replay throws is left out of the parallel one.
+ * Exits with a non-zero status when an output differs.
+ */
+public final class ParallelReplayCheck {
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * for coding style
+     */
+    private ParallelReplayCheck() {
+    }
+
+    /**
+     * Runs the check.
+     *
+     * @param args optionally the number of threads of the parallel replay
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PARALLELISM;
+        ObjectMapper objectMapper = new ObjectMapper();
+        Files.createDirectories(Paths.get(CheckerConstants.RESULT_PATH));
+
+        List<String> inputs = new ArrayList<>();
+        for (File file : Objects.requireNonNull(
+                new File(CheckerConstants.TESTS_PATH).listFiles())) {
+            if (file.isFile() && !file.getName().startsWith("library")) {
+                inputs.add(file.getName());
+            }
+        }
+
+        Map<String, JsonNode> sequential = new HashMap<>();
+        for (String input : inputs) {
+            try {
+                Main.action(input, CheckerConstants.OUT_PATH + input);
+            } catch (RuntimeException e) {
+                System.out.println(input + ": skipped, the sequential replay threw " + e);
+                continue;
+            }
+            sequential.put(input, objectMapper.readTree(
+                    new File(CheckerConstants.OUT_PATH + input)));
+        }
+        inputs.retainAll(sequential.keySet());
+
+        Main.actionAll(inputs, parallelism);
+
+        int mismatches = 0;
+        for (String input : inputs) {
+            JsonNode parallel = objectMapper.readTree(new File(CheckerConstants.OUT_PATH
+                                                               + input));
+            if (!parallel.equals(sequential.get(input))) {
+                System.out.println(input + ": parallel output differs from sequential");
+                mismatches++;
+            }
+        }
+        System.out.println(inputs.size() + " inputs replayed on " + parallelism
+                + " threads, " + mismatches + " differ");
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package main;
+
+import app.Admin;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.input.CommandInput;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * The type Sharded engine.
+ * Runs the commands of one replay on several threads while producing the output of a
+ * sequential run. Users are split between single-threaded shards by the hash of their
+ * username. Commands that only touch the user issuing them and that user's player are
+ * queued on the user's shard; any other command is a barrier: the queued commands run
+ * first, all shards in parallel, then the barrier runs alone on the calling thread.
+ * Shards run against a shard view of the Admin of the calling thread, see Admin.shard.
+ * Commands that change what other users can see, like follow or createPlaylist, and
+ * commands that read the state of several users, like printCurrentPage or getTop5Songs,
+ * are barriers, so no queued command can observe another shard.
+ */
+public final class ShardedEngine implements Closeable {
+    private static final int MAX_QUEUED = 4096;
+    private static final Set<String> PER_USER_COMMANDS = Set.of("search", "select", "load",
+            "playPause", "repeat", "shuffle", "forward", "backward", "like", "next", "prev",
+            "showPlaylists", "status", "showPreferredSongs", "getPreferredGenre",
+            "switchConnectionStatus", "changePage");
+
+    private final Function<CommandInput, ObjectNode> execute;
+    private final Admin engine;
+    private final ExecutorService[] shards;
+    private final List<CommandInput> queued = new ArrayList<>();
+
+    /**
+     * Instantiates a new Sharded engine over the Admin of the current thread.
+     *
+     * @param shardCount the number of shards
+     * @param execute    executes a command on the Admin of the thread running it
+     */
+    public ShardedEngine(final int shardCount,
+                         final Function<CommandInput, ObjectNode> execute) {
+        this.execute = execute;
+        this.engine = Admin.getInstance();
+        this.shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String name = "shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Submits the next command of the replay.
+     *
+     * @param command the command
+     *
+     * @return the outputs completed by this command, in the order of their commands
+     */
+    public List<ObjectNode> submit(final CommandInput command) {
+        if (command.getUsername() != null
+                && PER_USER_COMMANDS.contains(command.getCommand())) {
+            queued.add(command);
+            return queued.size() >= MAX_QUEUED ? flush() : new ArrayList<>();
+        }
+
+        List<ObjectNode> outputs = flush();
+        ObjectNode output = execute.apply(command);
+        if (output != null) {
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    /**
+     * Runs every queued command.
+     *
+     * @return the outputs of the queued commands, in the order of the commands
+     */
+    public List<ObjectNode> flush() {
+        List<ObjectNode> outputs = new ArrayList<>();
+        if (queued.isEmpty()) {
+            return outputs;
+        }
+
+        List<List<Integer>> positions = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < queued.size(); i++) {
+            String username = queued.get(i).getUsername();
+            positions.get(Math.floorMod(username.hashCode(), shards.length)).add(i);
+        }
+
+        ObjectNode[] results = new ObjectNode[queued.size()];
+        List<Admin> views = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            List<Integer> mine = positions.get(i);
+            if (mine.isEmpty()) {
+                continue;
+            }
+            Admin view = engine.shard();
+            views.add(view);
+            futures.add(shards[i].submit(() -> {
+                Admin.restore(view);
+                for (int position : mine) {
+                    results[position] = execute.apply(queued.get(position));
+                }
+            }));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause
+                            ? cause : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IllegalStateException(e);
+            }
+        }
+
+        for (Admin view : views) {
+            engine.join(view);
+        }
+        engine.updateTimestamp(queued.get(queued.size() - 1).getTimestamp());
+        queued.clear();
+        if (failure != null) {
+            throw failure;
+        }
+
+        for (ObjectNode result : results) {
+            if (result != null) {
+                outputs.add(result);
+            }
+        }
+        return outputs;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService shard : shards) {
+            shard.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package main;
+
+import app.Admin;
+import app.CommandRegistry;
+import app.audio.LibraryEntry;
+import app.user.User;
+import app.utils.Enums;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import fileio.input.CommandInput;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static java.util.Map.entry;
+
+/**
+ * The type Snapshot reads.
+ * Serves the read-only commands, like status or printCurrentPage, from answers the engine
+ * published, instead of queueing them behind the writes on the engine thread.
+ * When a read runs on the engine thread, its output is published as an immutable answer,
+ * with the version of the engine it was read at and what it was read from: the users whose
+ * writes it shows and the topics, like the likes or the followers, that other writes
+ * change. The next reads of the same command and user are then served from that answer on
+ * the reader threads, with their own timestamp, for as long as no write received since may
+ * have changed it. A write only changes what is read about the user sending it and the
+ * topic of its command, see WRITE_TOPICS; a write that can change anything, like
+ * deleteUser, makes every answer stale. The status of a playing player is counted down,
+ * and stays valid until its track ends.
+ * Reads are therefore answered exactly as the file replay answers them, and a read with a
+ * stale answer runs on the engine thread, which publishes its answer anew.
+ * Configured with the spotify.reads.threads system property; without any reader thread,
+ * the default on a single core, every command runs on the engine thread.
+ */
+public final class SnapshotReads implements Closeable {
+    public static final String THREADS_PROPERTY = "spotify.reads.threads";
+
+    /**
+     * What the writes of other users change in an answer.
+     */
+    private enum Topic {
+        LIKES, FOLLOWS, CONNECTIONS, USERS, ALBUMS, PLAYLISTS, PLAYLIST_SONGS
+    }
+
+    private static final Set<String> USER_READS = Set.of("status", "showPlaylists",
+            "showPreferredSongs", "getPreferredGenre", "printCurrentPage", "showAlbums",
+            "showPodcasts");
+    private static final Map<String, Set<Topic>> READ_TOPICS = Map.ofEntries(
+            entry("status", Set.of(Topic.PLAYLIST_SONGS)),
+            entry("showPlaylists", Set.of(Topic.FOLLOWS)),
+            entry("showPreferredSongs", Set.of()),
+            entry("getPreferredGenre", Set.of()),
+            entry("printCurrentPage", Set.of()),
+            entry("showAlbums", Set.of()),
+            entry("showPodcasts", Set.of()),
+            entry("getOnlineUsers", Set.of(Topic.CONNECTIONS, Topic.USERS)),
+            entry("getAllUsers", Set.of(Topic.USERS)),
+            entry("getTop5Songs", Set.of(Topic.LIKES, Topic.ALBUMS)),
+            entry("getTop5Albums", Set.of(Topic.LIKES, Topic.ALBUMS)),
+            entry("getTop5Artists", Set.of(Topic.LIKES, Topic.ALBUMS)),
+            entry("getTop5Playlists", Set.of(Topic.FOLLOWS, Topic.PLAYLISTS)));
+    private static final Set<Topic> HOME_PAGE_TOPICS = EnumSet.of(Topic.LIKES, Topic.FOLLOWS,
+            Topic.USERS, Topic.PLAYLISTS);
+    private static final Map<String, Set<Topic>> WRITE_TOPICS = Map.ofEntries(
+            entry("search", Set.of()), entry("select", Set.of()), entry("load", Set.of()),
+            entry("playPause", Set.of()), entry("repeat", Set.of()),
+            entry("shuffle", Set.of()), entry("forward", Set.of()),
+            entry("backward", Set.of()), entry("next", Set.of()), entry("prev", Set.of()),
+            entry("changePage", Set.of()), entry("addEvent", Set.of()),
+            entry("removeEvent", Set.of()), entry("addMerch", Set.of()),
+            entry("addPodcast", Set.of()), entry("removePodcast", Set.of()),
+            entry("addAnnouncement", Set.of()), entry("removeAnnouncement", Set.of()),
+            entry("like", Set.of(Topic.LIKES)),
+            entry("follow", Set.of(Topic.FOLLOWS)),
+            entry("switchConnectionStatus", Set.of(Topic.CONNECTIONS)),
+            entry("addUser", Set.of(Topic.USERS)),
+            entry("addAlbum", Set.of(Topic.ALBUMS)),
+            entry("createPlaylist", Set.of(Topic.PLAYLISTS)),
+            entry("addRemoveInPlaylist", Set.of(Topic.PLAYLIST_SONGS)));
+
+    private record Key(String command, String username) {
+    }
+
+    /**
+     * A published answer to a read.
+     *
+     * @param output    the output of the read, not changed once published
+     * @param version   the version of the engine it was read at
+     * @param users     the users whose writes may change it
+     * @param topics    the topics whose writes may change it
+     * @param timestamp the timestamp it was read at
+     * @param remained  for the status of a playing player, the time left of the track,
+     *                  or -1
+     */
+    record Answer(ObjectNode output, long version, List<String> users, Set<Topic> topics,
+                  int timestamp, int remained) {
+    }
+
+    private final ExecutorService readers;
+    private final Map<Key, Answer> answers = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastWrites = new HashMap<>();
+    private final long[] lastTopicWrites = new long[Topic.values().length];
+    private long lastSharedWrite;
+    private long received;
+    private int lastTimestamp = Integer.MIN_VALUE;
+    private int engineTimestamp = Integer.MIN_VALUE;
+
+    /**
+     * Instantiates new Snapshot reads.
+     *
+     * @param threads the number of reader threads
+     */
+    public SnapshotReads(final int threads) {
+        this.readers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the number of reader threads asked for, one less than the cores by default.
+     *
+     * @return the number of reader threads
+     */
+    public static int configuredThreads() {
+        return Integer.getInteger(THREADS_PROPERTY,
+                Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Looks up, on the thread receiving the commands, a published answer to a command.
+     * Every command received is looked up first, so that the answers about a playing
+     * player end with the first command past the end of its track.
+     *
+     * @param command the command
+     *
+     * @return the answer, or null if the command is not a read or has no answer that is
+     * still valid, and must run on the engine thread
+     */
+    public Answer lookup(final CommandInput command) {
+        if (command.getTimestamp() == null) {
+            return null;
+        }
+        lastTimestamp = Math.max(lastTimestamp, command.getTimestamp());
+        Key key = keyOf(command);
+        Answer answer = key == null ? null : answers.get(key);
+        if (answer == null) {
+            return null;
+        }
+        if (!isValid(answer)) {
+            answers.remove(key, answer);
+            return null;
+        }
+        return answer;
+    }
+
+    private boolean isValid(final Answer answer) {
+        if (lastSharedWrite > answer.version()) {
+            return false;
+        }
+        for (Topic topic : answer.topics()) {
+            if (lastTopicWrites[topic.ordinal()] > answer.version()) {
+                return false;
+            }
+        }
+        for (String user : answer.users()) {
+            if (lastWrites.getOrDefault(user, 0L) > answer.version()) {
+                return false;
+            }
+        }
+        // The engine moves a player on to its next track at the first command past the
+        // end of the current one, whoever sent it.
+        return answer.remained() < 0 || lastTimestamp - answer.timestamp() < answer.remained();
+    }
+
+    /**
+     * Registers, on the thread receiving the commands, a command that goes to the engine
+     * thread.
+     *
+     * @param command the command
+     *
+     * @return the version of the engine once the command has run
+     */
+    public long received(final CommandInput command) {
+        if (READ_TOPICS.containsKey(command.getCommand())
+                || !CommandRegistry.contains(command.getCommand())) {
+            return received;
+        }
+        received++;
+        if (command.getUsername() != null) {
+            lastWrites.put(command.getUsername(), received);
+        }
+        Set<Topic> topics = WRITE_TOPICS.get(command.getCommand());
+        if (topics == null) {
+            lastSharedWrite = received;
+        } else {
+            for (Topic topic : topics) {
+                lastTopicWrites[topic.ordinal()] = received;
+            }
+        }
+        return received;
+    }
+
+    /**
+     * Wraps the run of a command on the engine thread, so that the answer of a read is
+     * published once it ran.
+     *
+     * @param version the version of the engine once the command has run, see received
+     * @param execute executes a command on the Admin of the engine thread
+     *
+     * @return the wrapped execute
+     */
+    public Function<CommandInput, ObjectNode> publishing(
+            final long version, final Function<CommandInput, ObjectNode> execute) {
+        return command -> {
+            // A read older than a command before it sees the players as that command
+            // left them, so its answer is not counted down from its own timestamp.
+            boolean inOrder = command.getTimestamp() != null
+                    && command.getTimestamp() >= engineTimestamp;
+            if (command.getTimestamp() != null) {
+                engineTimestamp = Math.max(engineTimestamp, command.getTimestamp());
+            }
+            ObjectNode output = execute.apply(command);
+            Key key = keyOf(command);
+            if (output != null && key != null && inOrder) {
+                answers.put(key, answerOf(command, output, version));
+            }
+            return output;
+        };
+    }
+
+    private static Answer answerOf(final CommandInput command, final ObjectNode output,
+                                   final long version) {
+        String name = command.getCommand();
+        String username = command.getUsername();
+        List<String> users = new ArrayList<>();
+        Set<Topic> topics = EnumSet.noneOf(Topic.class);
+        topics.addAll(READ_TOPICS.get(name));
+        int remained = -1;
+
+        User user = Admin.getInstance().getUser(username);
+        if (USER_READS.contains(name)) {
+            users.add(username);
+        }
+        if (name.equals("status") && user.isPlaying()) {
+            remained = output.get("stats").get("remainedTime").asInt();
+        }
+        if (name.equals("printCurrentPage") && user != null && user.isOnline()) {
+            // The page shown is the one of the user selected last, when it is a user, and
+            // may belong to yet another user.
+            LibraryEntry lastSelect = user.getLastSelected();
+            if (lastSelect != null && lastSelect.isUser()) {
+                user = Admin.getInstance().getUser(lastSelect.getName());
+                users.add(lastSelect.getName());
+            }
+            if (user.getUserPage() == Enums.UserPage.HOME_PAGE) {
+                topics.addAll(HOME_PAGE_TOPICS);
+            } else if (user.getUserPage() != Enums.UserPage.LIKED_CONTENT_PAGE
+                    && user.getOwnerPage() != null) {
+                users.add(user.getOwnerPage());
+            }
+        }
+        return new Answer(output, version, List.copyOf(users), Set.copyOf(topics),
+                command.getTimestamp(), remained);
+    }
+
+    private static Key keyOf(final CommandInput command) {
+        if (!READ_TOPICS.containsKey(command.getCommand())) {
+            return null;
+        }
+        if (!USER_READS.contains(command.getCommand())) {
+            return new Key(command.getCommand(), null);
+        }
+        return command.getUsername() == null ? null
+                : new Key(command.getCommand(), command.getUsername());
+    }
+
+    /**
+     * Runs a task on a reader thread.
+     *
+     * @param task the task
+     */
+    public void execute(final Runnable task) {
+        readers.execute(task);
+    }
+
+    /**
+     * Answers a read, on a reader thread, from a published answer.
+     *
+     * @param command the command
+     * @param answer  the answer, see lookup
+     *
+     * @return the output of the command
+     */
+    public ObjectNode read(final CommandInput command, final Answer answer) {
+        ObjectNode output = answer.output().deepCopy();
+        output.put("timestamp", command.getTimestamp());
+        if (answer.remained() >= 0) {
+            int elapsed = Math.max(0, command.getTimestamp() - answer.timestamp());
+            ((ObjectNode) output.get("stats")).put("remainedTime",
+                    answer.remained() - elapsed);
+        }
+        return output;
+    }
+
+    @Override
+    public void close() {
+        readers.shutdownNow();
+    }
+}
@@ -1,5 +1,6 @@
 package app;
 
+import app.audio.AlbumLeaderboard;
 import app.audio.Collections.Album;
 import app.audio.Collections.Merch;
 import app.audio.Collections.Playlist;
@@ -8,6 +9,8 @@ import app.audio.Files.ItemEntry;
 import app.audio.Files.Episode;
 import app.audio.Files.Song;
 import app.audio.LibraryEntry;
+import app.audio.ListenKeys;
+import app.audio.SongLeaderboard;
 import app.user.User;
 import app.utils.Enums;
 
@@ -18,7 +21,9 @@ import fileio.input.UserInput;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static app.CommandRunner.LIMIT;
 
@@ -27,12 +32,16 @@ import static app.CommandRunner.LIMIT;
  */
 public final class Admin {
     private List<User> users = new ArrayList<>();
+    private Map<String, User> usersByName = new HashMap<>();
     private List<Song> songs = new ArrayList<>();
     private List<Podcast> podcasts = new ArrayList<>();
     private int timestamp = 0;
     private List<Merch> merches = new ArrayList<>();
+    private final SongLeaderboard songLeaderboard = new SongLeaderboard();
+    private final AlbumLeaderboard albumLeaderboard = new AlbumLeaderboard();
+    private final ListenKeys listenKeys = new ListenKeys();
 
-    private static final Admin instance = new Admin();
+    private static final ThreadLocal<Admin> instance = ThreadLocal.withInitial(Admin::new);
 
     private Admin() {
     }
@@ -44,8 +53,9 @@ public final class Admin {
      */
     public void setUsers(final List<UserInput> userInputList) {
         users = new ArrayList<>();
+        usersByName = new HashMap<>();
         for (UserInput userInput : userInputList) {
-            users.add(new User(userInput.getUsername(), userInput.getAge(), userInput.getCity()));
+            addUser(new User(userInput.getUsername(), userInput.getAge(), userInput.getCity()));
         }
     }
 
@@ -66,6 +76,10 @@ public final class Admin {
                     .artist(songInput.getArtist())
                     .build());
         }
+        songLeaderboard.clear();
+        for (Song song : songs) {
+            songLeaderboard.add(song);
+        }
     }
 
 
@@ -100,6 +114,18 @@ public final class Admin {
         return songs;
     }
 
+    /**
+     * Adds songs at the end of the library.
+     *
+     * @param newSongs the songs to be added
+     */
+    public void addSongs(final List<Song> newSongs) {
+        for (Song song : newSongs) {
+            songs.add(song);
+            songLeaderboard.add(song);
+        }
+    }
+
     /**
      * Gets podcasts.
      *
@@ -130,12 +156,10 @@ public final class Admin {
      * @return the user
      */
     public User getUser(final String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return user;
-            }
+        if (username == null) {
+            return null;
         }
-        return null;
+        return usersByName.get(username);
     }
 
     /**
@@ -161,16 +185,9 @@ public final class Admin {
      * @return the top 5 songs
      */
     public List<String> getTop5Songs() {
-        List<Song> sortedSongs = new ArrayList<>(songs);
-        sortedSongs.sort(Comparator.comparingInt(Song::getLikes).reversed());
         List<String> topSongs = new ArrayList<>();
-        int count = 0;
-        for (Song song : sortedSongs) {
-            if (count >= LIMIT) {
-                break;
-            }
+        for (Song song : songLeaderboard.getTop(LIMIT)) {
             topSongs.add(song.getName());
-            count++;
         }
         return topSongs;
     }
@@ -239,6 +256,28 @@ public final class Admin {
      */
     public void addUser(final User newUser) {
         users.add(newUser);
+        usersByName.putIfAbsent(newUser.getUsername(), newUser);
+        listenKeys.ownersChanged();
+    }
+
+    /**
+     * Removes a user from the list and from the username index.
+     * CommandRunner.addUser refuses a name that is taken, but the library may still list
+     * the same name twice, so the next user with that name takes its place in the index.
+     *
+     * @param user the user to be removed
+     */
+    private void removeUser(final User user) {
+        users.remove(user);
+        if (usersByName.remove(user.getUsername(), user)) {
+            for (User other : users) {
+                if (other.getUsername().equals(user.getUsername())) {
+                    usersByName.put(other.getUsername(), other);
+                    break;
+                }
+            }
+        }
+        listenKeys.ownersChanged();
     }
 
     /**
@@ -251,6 +290,7 @@ public final class Admin {
             Song s = songs.get(i);
             if (s.getArtist().equalsIgnoreCase(userName)) {
                 songs.remove(i);
+                songLeaderboard.remove(s);
             }
         }
     }
@@ -278,9 +318,12 @@ public final class Admin {
             for (User user : users) {
                 user.deleteLikeAndFollowFrom(crtUser);
             }
+            for (Album album : crtUser.getAlbums()) {
+                albumLeaderboard.remove(album);
+            }
             crtUser.cleanBeforeDelete();
             removeSongs(crtUser.getUsername());
-            users.remove(crtUser);
+            removeUser(crtUser);
             return true;
         }
 
@@ -292,7 +335,11 @@ public final class Admin {
      */
     public void reset() {
         users.clear();
+        usersByName.clear();
         songs.clear();
+        songLeaderboard.clear();
+        albumLeaderboard.clear();
+        listenKeys.clear();
         podcasts.clear();
         timestamp = 0;
         merches.clear();
@@ -300,12 +347,13 @@ public final class Admin {
 
     /**
      * Adds a podcast.
-     * Checks if the podcast already exists in the collection and adds it if not.
+     * Checks if a podcast with the same name and owner already exists and adds it if not.
      *
      * @param podcast the Podcast object to be added.
      */
     public void addPodcast(final Podcast podcast) {
-        if (!podcasts.contains(podcast)) {
+        if (podcasts.stream().noneMatch(p -> p.getName().equals(podcast.getName())
+                && p.getOwner().equals(podcast.getOwner()))) {
             podcasts.add(podcast);
         }
     }
@@ -332,23 +380,46 @@ public final class Admin {
      * @return a list of strings, each representing the name of a top album
      */
     public List<String> getTop5Albums() {
-        List<Album> allAlbums = new ArrayList<>(Admin.getInstance().getAllAlbums());
-
-        allAlbums.sort(Comparator.comparing(Album::getTotalLikes).reversed()
-                .thenComparing(Album::getName));
-
         List<String> topAlbums = new ArrayList<>();
-        int count = 0;
-        for (Album album : allAlbums) {
-            if (count >= LIMIT) {
-                break;
-            }
+        for (Album album : albumLeaderboard.getTopAlbums(LIMIT)) {
             topAlbums.add(album.getName());
-            count++;
         }
         return topAlbums;
     }
 
+    /**
+     * Retrieves the names of the top 5 artists based on the total number
+     * of likes their albums have received.
+     *
+     * @return a list of strings, each representing the name of a top artist
+     */
+    public List<String> getTop5Artists() {
+        return albumLeaderboard.getTopArtists(LIMIT);
+    }
+
+    /**
+     * Adds an album to the album and artist like rankings.
+     * The artist and album a song resolves to may change, so the ids kept for the
+     * listens of songs are dropped, see ListenKeys.
+     *
+     * @param album the album
+     */
+    public void addAlbum(final Album album) {
+        albumLeaderboard.add(album);
+        listenKeys.ownersChanged();
+    }
+
+    /**
+     * Removes an album from the album and artist like rankings, dropping the ids kept for
+     * the listens of songs as addAlbum does.
+     *
+     * @param album the album
+     */
+    public void removeAlbum(final Album album) {
+        albumLeaderboard.remove(album);
+        listenKeys.ownersChanged();
+    }
+
     /**
      * Adds a specified Merch object to the collection.
      *
@@ -381,6 +452,21 @@ public final class Admin {
         return users;
     }
 
+    public ListenKeys getListenKeys() {
+        return listenKeys;
+    }
+
+    /**
+     * Updates the like rankings after the likes of a song changed.
+     *
+     * @param song          the song
+     * @param previousLikes the number of likes before the change
+     */
+    public void likesChanged(final Song song, final int previousLikes) {
+        songLeaderboard.likesChanged(song, previousLikes);
+        albumLeaderboard.likesChanged(song, previousLikes);
+    }
+
     public int getTimestamp() {
         return timestamp;
     }
@@ -389,8 +475,19 @@ public final class Admin {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Gets the instance used by the current thread.
+     * Every thread replays on its own Admin, so independent inputs can be replayed
+     * in parallel, one per thread, without sharing any state.
+     * The instance is bound to the thread instead of being handed down by the caller,
+     * because the users, players and pages reach it through getInstance from deep inside
+     * the commands; passing an engine down would change every one of those signatures
+     * for the same isolation.
+     *
+     * @return the instance
+     */
     public static Admin getInstance() {
-        return instance;
+        return instance.get();
     }
 
 }
@@ -14,6 +14,7 @@ import app.user.User;
 import app.user.userNotification.Notification;
 import app.utils.Enums;
 import app.utils.Enums.UserPage;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -22,11 +23,9 @@ import fileio.input.SongInput;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -79,7 +78,7 @@ public final class CommandRunner {
         String message = "Search returned " + results.size() + " results";
 
         objectNode.put("message", message);
-        objectNode.put("results", objectMapper.valueToTree(results));
+        objectNode.set("results", textArray(results));
 
         return objectNode;
     }
@@ -439,7 +438,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(playlists));
+        objectNode.set("result", playlistArray(playlists));
 
         return objectNode;
     }
@@ -485,7 +484,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("stats", objectMapper.valueToTree(stats));
+        objectNode.set("stats", objectMapper.valueToTree(stats));
 
         return objectNode;
     }
@@ -505,7 +504,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(songs));
+        objectNode.set("result", textArray(songs));
 
         return objectNode;
     }
@@ -525,7 +524,7 @@ public final class CommandRunner {
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("user", commandInput.getUsername());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(preferredGenre));
+        objectNode.put("result", preferredGenre);
 
         return objectNode;
     }
@@ -543,7 +542,7 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(songs));
+        objectNode.set("result", textArray(songs));
 
         return objectNode;
     }
@@ -561,7 +560,7 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.put("result", objectMapper.valueToTree(playlists));
+        objectNode.set("result", textArray(playlists));
 
         return objectNode;
     }
@@ -592,6 +591,45 @@ public final class CommandRunner {
                 + " has changed status successfully.");
     }
 
+    /**
+     * Builds an array of strings directly as a node tree, without going through the
+     * serializer like valueToTree does.
+     *
+     * @param values the strings
+     *
+     * @return the array node, or a null node if there are no values
+     */
+    private static JsonNode textArray(final List<String> values) {
+        if (values == null) {
+            return objectMapper.nullNode();
+        }
+        ArrayNode arrayNode = objectMapper.createArrayNode();
+        for (String value : values) {
+            arrayNode.add(value);
+        }
+        return arrayNode;
+    }
+
+    /**
+     * Builds the playlists shown to a user, with the same fields, in the same order,
+     * as the bean serialization of PlaylistOutput.
+     *
+     * @param playlists the playlists
+     *
+     * @return the array node
+     */
+    private static ArrayNode playlistArray(final List<PlaylistOutput> playlists) {
+        ArrayNode arrayNode = objectMapper.createArrayNode();
+        for (PlaylistOutput playlist : playlists) {
+            ObjectNode playlistNode = arrayNode.addObject();
+            playlistNode.put("name", playlist.getName());
+            playlistNode.set("songs", textArray(playlist.getSongs()));
+            playlistNode.put("visibility", playlist.getVisibility());
+            playlistNode.put("followers", playlist.getFollowers());
+        }
+        return arrayNode;
+    }
+
     private static ObjectNode createResponse(final CommandInput commandInput,
                                              final String message) {
         ObjectNode objectNode = objectMapper.createObjectNode();
@@ -619,7 +657,7 @@ public final class CommandRunner {
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", "getOnlineUsers");
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.set("result", objectMapper.valueToTree(onlineUsers));
+        objectNode.set("result", textArray(onlineUsers));
 
         return objectNode;
     }
@@ -701,7 +739,7 @@ public final class CommandRunner {
         }
 
         Album album = new Album(commandInput.getName(), user.getUsername());
-        if (user.getAlbums().contains(album)) {
+        if (user.getAlbums().stream().anyMatch(a -> a.getName().equals(album.getName()))) {
             return createResponse(commandInput, user.getUsername()
                     + " has another album with the same name.");
         }
@@ -715,7 +753,6 @@ public final class CommandRunner {
             }
         }
 
-        List<Song> songs = Admin.getInstance().getSongs();
         ArrayList<Song> s = new ArrayList<>();
 
         for (SongInput songInput : commandInput.getSongs()) {
@@ -723,14 +760,17 @@ public final class CommandRunner {
                     .fromSongInput(songInput)
                     .build();
             s.add(song);
-            songs.add(song);
         }
+        Admin.getInstance().addSongs(s);
 
         album.setDescription(commandInput.getDescription());
         album.setReleaseYear(commandInput.getReleaseYear());
         album.setSongs(s);
 
         String message = user.addAlbum(album);
+        if (user.getAlbums().stream().anyMatch(a -> a == album)) {
+            Admin.getInstance().addAlbum(album);
+        }
 
         return createResponse(commandInput, message);
     }
@@ -755,7 +795,18 @@ public final class CommandRunner {
             return createResponse(commandInput, user.getUsername() + " is not an artist.");
         }
 
+        Album album = null;
+        for (Album userAlbum : user.getAlbums()) {
+            if (userAlbum.getName().equals(commandInput.getName())) {
+                album = userAlbum;
+                break;
+            }
+        }
+
         String message = user.removeAlbum(commandInput.getName());
+        if (album != null && !user.getAlbums().contains(album)) {
+            Admin.getInstance().removeAlbum(album);
+        }
         return createResponse(commandInput, message);
     }
 
@@ -997,7 +1048,7 @@ public final class CommandRunner {
             results.add(user.getUsername());
         }
 
-        objectNode.put("result", objectMapper.valueToTree(results));
+        objectNode.set("result", textArray(results));
         return objectNode;
     }
 
@@ -1163,28 +1214,12 @@ public final class CommandRunner {
      * @return ObjectNode with the command details and the list of top 5 artists
      */
     public static ObjectNode getTop5Artists(final CommandInput commandInput) {
-        Map<String, Integer> artistLikes = new HashMap<>();
-
-        for (Album album : Admin.getInstance().getAllAlbums()) {
-            String artistName = album.getUsername();
-            User artistUser = Admin.getInstance().getUser(artistName);
-            if (artistUser != null && artistUser.getUserType() == Enums.UserType.ARTIST) {
-                int likes = album.getSongs().stream().mapToInt(Song::getLikes).sum();
-                artistLikes.put(artistName, artistLikes.getOrDefault(artistName, 0) + likes);
-            }
-        }
-        List<Map.Entry<String, Integer>> sortedArtists = new ArrayList<>(artistLikes.entrySet());
-        sortedArtists.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-
-        List<String> topArtists = sortedArtists.stream()
-                .limit(LIMIT)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        List<String> topArtists = Admin.getInstance().getTop5Artists();
 
         ObjectNode objectNode = objectMapper.createObjectNode();
         objectNode.put("command", commandInput.getCommand());
         objectNode.put("timestamp", commandInput.getTimestamp());
-        objectNode.set("result", objectMapper.valueToTree(topArtists));
+        objectNode.set("result", textArray(topArtists));
 
         return objectNode;
     }
@@ -1413,7 +1448,6 @@ public final class CommandRunner {
      * @return ObjectNode with user's notifications or error message if user not found.
      */
     public static ObjectNode getNotifications(final CommandInput commandInput) {
-        ObjectMapper objectMapper = new ObjectMapper();
         User user = Admin.getInstance().getUser(commandInput.getUsername());
 
         if (user == null) {
@@ -1433,10 +1467,7 @@ public final class CommandRunner {
 
         user.clearNotifications();
 
-        ObjectNode responseNode = objectMapper.createObjectNode();
-        responseNode.put("command", commandInput.getCommand());
-        responseNode.put("user", commandInput.getUsername());
-        responseNode.put("timestamp", commandInput.getTimestamp());
+        ObjectNode responseNode = createResponse(commandInput, null);
         responseNode.set("notifications", notificationsArray);
 
         return responseNode;
@@ -0,0 +1,165 @@
+package app.audio;
+
+import app.audio.Collections.Album;
+import app.audio.Files.Song;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The type Album leaderboard.
+ * Keeps the like totals of the albums and of the artists owning them up to date as songs
+ * are liked, so that the most liked albums and artists can be read without summing the
+ * likes of every song again.
+ * Albums with the same number of likes are ordered by name, then by owner, and artists
+ * with the same number of likes are ordered by name.
+ */
+public final class AlbumLeaderboard {
+    private final Map<Song, Album> songAlbums = new IdentityHashMap<>();
+    private final Map<String, Integer> albumCounts = new HashMap<>();
+    private final Ranking<Album> albums = new Ranking<>(Comparator.comparing(Album::getName)
+            .thenComparing(Album::getOwner));
+    private final Ranking<String> artists = new Ranking<>(Comparator.naturalOrder());
+
+    /**
+     * Adds an album, together with its likes, to the totals of its owner.
+     *
+     * @param album the album
+     */
+    public void add(final Album album) {
+        for (Song song : album.getSongs()) {
+            songAlbums.put(song, album);
+        }
+        albums.put(album, album.getTotalLikes());
+        albumCounts.merge(album.getOwner(), 1, Integer::sum);
+        artists.put(album.getOwner(), artists.get(album.getOwner()) + album.getTotalLikes());
+    }
+
+    /**
+     * Removes an album. Its owner is removed as well once it has no albums left.
+     *
+     * @param album the album
+     */
+    public void remove(final Album album) {
+        if (!albums.remove(album)) {
+            return;
+        }
+        for (Song song : album.getSongs()) {
+            songAlbums.remove(song);
+        }
+
+        String owner = album.getOwner();
+        if (albumCounts.merge(owner, -1, Integer::sum) == 0) {
+            albumCounts.remove(owner);
+            artists.remove(owner);
+        } else {
+            artists.put(owner, artists.get(owner) - album.getTotalLikes());
+        }
+    }
+
+    /**
+     * Updates the totals of the album containing a song whose likes changed.
+     *
+     * @param song          the song
+     * @param previousLikes the number of likes before the change
+     */
+    public void likesChanged(final Song song, final int previousLikes) {
+        Album album = songAlbums.get(song);
+        if (album == null) {
+            return;
+        }
+        int delta = song.getLikes() - previousLikes;
+        album.updateTotalLikes(delta);
+        albums.put(album, album.getTotalLikes());
+        artists.put(album.getOwner(), artists.get(album.getOwner()) + delta);
+    }
+
+    /**
+     * Gets the most liked albums.
+     *
+     * @param limit the maximum number of albums
+     *
+     * @return the albums
+     */
+    public List<Album> getTopAlbums(final int limit) {
+        return albums.getTop(limit);
+    }
+
+    /**
+     * Gets the names of the artists with the most liked albums.
+     *
+     * @param limit the maximum number of artists
+     *
+     * @return the artist names
+     */
+    public List<String> getTopArtists(final int limit) {
+        return artists.getTop(limit);
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        songAlbums.clear();
+        albumCounts.clear();
+        albums.clear();
+        artists.clear();
+    }
+
+    /**
+     * Keys ordered by decreasing score, with ties broken by the given comparator.
+     * A key is taken out of the ordered set before its score changes, so the set never
+     * sees a key whose position is stale.
+     */
+    private static final class Ranking<T> {
+        private final Map<T, Integer> scores = new HashMap<>();
+        private final TreeSet<T> ranked;
+
+        Ranking(final Comparator<T> tieBreak) {
+            Comparator<T> byScore = Comparator.comparing(scores::get);
+            ranked = new TreeSet<>(byScore.reversed().thenComparing(tieBreak));
+        }
+
+        int get(final T key) {
+            return scores.getOrDefault(key, 0);
+        }
+
+        void put(final T key, final int score) {
+            if (scores.containsKey(key)) {
+                ranked.remove(key);
+            }
+            scores.put(key, score);
+            ranked.add(key);
+        }
+
+        boolean remove(final T key) {
+            if (!scores.containsKey(key)) {
+                return false;
+            }
+            ranked.remove(key);
+            scores.remove(key);
+            return true;
+        }
+
+        List<T> getTop(final int limit) {
+            List<T> top = new ArrayList<>();
+            for (T key : ranked) {
+                if (top.size() >= limit) {
+                    break;
+                }
+                top.add(key);
+            }
+            return top;
+        }
+
+        void clear() {
+            scores.clear();
+            ranked.clear();
+        }
+    }
+}
@@ -4,13 +4,13 @@ import app.audio.Files.AudioFile;
 import app.audio.Files.Song;
 
 import java.util.List;
-import java.util.Objects;
 
 public final class Album extends AudioCollection {
 
     private String releaseYear;
     private String description;
     private List<Song> songs;
+    private int totalLikes;
 
     public Album(final String name, final String owner) {
         super(name, owner);
@@ -27,7 +27,16 @@ public final class Album extends AudioCollection {
     }
 
     public int getTotalLikes() {
-        return songs.stream().mapToInt(Song::getLikes).sum();
+        return totalLikes;
+    }
+
+    /**
+     * Updates the cached number of likes after one of the songs was liked or disliked.
+     *
+     * @param delta the change in the number of likes
+     */
+    public void updateTotalLikes(final int delta) {
+        totalLikes += delta;
     }
 
     public String getUsername() {
@@ -56,27 +65,11 @@ public final class Album extends AudioCollection {
 
     public void setSongs(final List<Song> songs) {
         this.songs = songs;
+        this.totalLikes = songs.stream().mapToInt(Song::getLikes).sum();
     }
 
     @Override
     public int getNumberOfTracks() {
         return songs.size();
     }
-
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
-        }
-        if (!(object instanceof Album album)) {
-            return false;
-        }
-        return Objects.equals(getName(), album.getName())
-                && Objects.equals(getOwner(), album.getOwner());
-    }
-
-    @Override
-    public int hashCode() {
-        return super.hashCode();
-    }
 }
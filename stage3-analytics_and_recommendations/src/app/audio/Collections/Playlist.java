@@ -1,13 +1,17 @@
 package app.audio.Collections;
 
+import app.Admin;
 import app.audio.Files.AudioFile;
 import app.audio.Files.Song;
+import app.audio.KeyTable;
 import app.utils.Enums;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 
 /**
  * The type Playlist.
@@ -15,6 +19,8 @@ import java.util.Objects;
 @Getter
 public final class Playlist extends AudioCollection {
     private final ArrayList<Song> songs;
+    @Getter(AccessLevel.NONE)
+    private final Set<Integer> songIds;
     private Enums.Visibility visibility;
     private Integer followers;
     private int timestamp;
@@ -39,6 +45,7 @@ public final class Playlist extends AudioCollection {
     public Playlist(final String name, final String owner, final int timestamp) {
         super(name, owner);
         this.songs = new ArrayList<>();
+        this.songIds = new HashSet<>();
         this.visibility = Enums.Visibility.PUBLIC;
         this.followers = 0;
         this.timestamp = timestamp;
@@ -46,13 +53,16 @@ public final class Playlist extends AudioCollection {
 
     /**
      * Contains song boolean.
+     * Songs are told apart by name and artist: the playlist holds at most one song of each
+     * artist with a given name. They are kept by their id in the listen keys, which tell
+     * songs apart the same way.
      *
      * @param song the song
      *
      * @return the boolean
      */
     public boolean containsSong(final Song song) {
-        return songs.contains(song);
+        return songIds.contains(songKeys().idOf(song));
     }
 
     /**
@@ -62,6 +72,7 @@ public final class Playlist extends AudioCollection {
      */
     public void addSong(final Song song) {
         songs.add(song);
+        songIds.add(songKeys().idOf(song));
     }
 
     /**
@@ -70,7 +81,21 @@ public final class Playlist extends AudioCollection {
      * @param song the song
      */
     public void removeSong(final Song song) {
-        songs.remove(song);
+        KeyTable<Song> keys = songKeys();
+        int id = keys.idOf(song);
+        if (!songIds.remove(id)) {
+            return;
+        }
+        for (int i = 0; i < songs.size(); i++) {
+            if (keys.idOf(songs.get(i)) == id) {
+                songs.remove(i);
+                return;
+            }
+        }
+    }
+
+    private static KeyTable<Song> songKeys() {
+        return Admin.getInstance().getListenKeys().getSongs();
     }
 
     /**
@@ -130,23 +155,6 @@ public final class Playlist extends AudioCollection {
         }
     }
 
-    @Override
-    public boolean equals(final Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        Playlist playlist = (Playlist) o;
-        return getName().equals(playlist.getName()) && getOwner().equals(playlist.getOwner());
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(getName());
-    }
-
     /**
      * Adds a list of Song objects to the existing collection of songs.
      *
@@ -155,5 +163,4 @@ public final class Playlist extends AudioCollection {
     public void addSongs(final List<Song> songs) {
         this.songs.addAll(songs);
     }
-
 }
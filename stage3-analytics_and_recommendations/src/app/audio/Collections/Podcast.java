@@ -5,7 +5,6 @@ import app.audio.Files.Episode;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 public final class Podcast extends AudioCollection {
     private final List<Episode> episodes;
@@ -45,22 +44,4 @@ public final class Podcast extends AudioCollection {
     public AudioFile getTrackByIndex(final int index) {
         return episodes.get(index);
     }
-
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
-        }
-        if (!(object instanceof Podcast podcast)) {
-            return false;
-        }
-        return Objects.equals(getName(), podcast.getName())
-                && Objects.equals(getOwner(), podcast.getOwner());
-    }
-
-    @Override
-    public int hashCode() {
-        return RANDOM_NUMBER_TO_HASH * Objects.hash(getName())
-                + RANDOM_NUMBER_TO_HASH * Objects.hash(getOwner());
-    }
 }
@@ -3,7 +3,6 @@ package app.audio.Files;
 import app.audio.Collections.Podcast;
 import lombok.Getter;
 
-import java.util.Objects;
 
 @Getter
 public final class Episode extends AudioFile {
@@ -15,22 +14,6 @@ public final class Episode extends AudioFile {
         podcast = null;
     }
 
-    @Override
-    public boolean equals(final Object object) {
-        if (this == object) {
-            return true;
-        }
-        if (!(object instanceof Episode episode)) {
-            return false;
-        }
-        return Objects.equals(getName(), episode.getName());
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(getName());
-    }
-
     public String getDescription() {
         return description;
     }
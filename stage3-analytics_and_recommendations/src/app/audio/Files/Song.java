@@ -1,11 +1,11 @@
 package app.audio.Files;
 
+import app.Admin;
 import fileio.input.SongInput;
 import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 @Getter
 public final class Song extends AudioFile {
@@ -180,24 +180,6 @@ public final class Song extends AudioFile {
         return filterByYear(this.getReleaseYear(), releaseYearFilter);
     }
 
-    @Override
-    public boolean equals(final Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-        Song song = (Song) o;
-        return getName().equals(song.getName()) && getArtist().equals(song.getArtist());
-    }
-
-    @Override
-    public int hashCode() {
-        return RANDOM_NUMBER_TO_HASH * Objects.hash(getName())
-                + RANDOM_NUMBER_TO_HASH * Objects.hash(getArtist());
-    }
-
     private static boolean filterByYear(final int year, final String query) {
         if (query.startsWith("<")) {
             return year < Integer.parseInt(query.substring(1));
@@ -213,6 +195,7 @@ public final class Song extends AudioFile {
      */
     public void like() {
         likes++;
+        Admin.getInstance().likesChanged(this, likes - 1);
     }
 
     /**
@@ -220,6 +203,6 @@ public final class Song extends AudioFile {
      */
     public void dislike() {
         likes--;
+        Admin.getInstance().likesChanged(this, likes + 1);
     }
-
 }
@@ -0,0 +1,135 @@
+package app.audio;
+
+import java.util.Arrays;
+
+/**
+ * The type Int counter.
+ * Counts occurrences of non-negative int keys in an open-addressing table of two int
+ * arrays, so incrementing a counter neither boxes nor allocates once the table is
+ * large enough.
+ */
+public final class IntCounter {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int EMPTY = -1;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    /**
+     * Instantiates a new Int counter.
+     */
+    public IntCounter() {
+        keys = new int[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Increments the counter of a key.
+     *
+     * @param key the key
+     */
+    public void increment(final int key) {
+        int slot = find(keys, key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = find(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot]++;
+    }
+
+    /**
+     * Gets the counter of a key.
+     *
+     * @param key the key
+     *
+     * @return the count, or 0 if the key was never counted
+     */
+    public int get(final int key) {
+        int slot = find(keys, key);
+        return keys[slot] == EMPTY ? 0 : counts[slot];
+    }
+
+    /**
+     * Gets the number of distinct keys counted.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of slots, for iterating with keyAt and countAt.
+     *
+     * @return the number of slots
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the key stored in a slot.
+     *
+     * @param slot the slot
+     *
+     * @return the key, or a negative value if the slot is empty
+     */
+    public int keyAt(final int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Gets the count stored in a slot.
+     *
+     * @param slot the slot
+     *
+     * @return the count
+     */
+    public int countAt(final int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        keys = new int[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int find(final int[] table, final int key) {
+        int mask = table.length - 1;
+        int slot = (key * HASH_MULTIPLIER) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
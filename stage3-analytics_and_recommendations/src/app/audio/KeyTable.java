@@ -0,0 +1,102 @@
+package app.audio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The type Key table.
+ * Numbers the distinct keys it sees in order of first use, so that counters can be
+ * kept in primitive arrays indexed by those numbers.
+ * Keys are compared with equals, the same way a HashMap keyed by them would, or by what
+ * an identity function gives for them. Keys with the same identity share the id of the
+ * first one seen, the same way a HashMap keeps the first of its equal keys.
+ * The id of a library entry is looked up by identity once, then read back from a table
+ * indexed by the id the entry got at creation, see LibraryEntry.getId.
+ *
+ * @param <T> the type of the keys
+ */
+public final class KeyTable<T> {
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final List<T> keys = new ArrayList<>();
+    private final Function<? super T, ?> identity;
+    private LibraryEntry[] cachedEntries = new LibraryEntry[0];
+    private int[] cachedIds = new int[0];
+
+    /**
+     * Instantiates a new Key table comparing the keys themselves.
+     */
+    public KeyTable() {
+        this(key -> key);
+    }
+
+    /**
+     * Instantiates a new Key table comparing the keys by their identity.
+     *
+     * @param identity gives what tells the keys apart
+     */
+    public KeyTable(final Function<? super T, ?> identity) {
+        this.identity = identity;
+    }
+
+    /**
+     * Gets the id of a key, assigning the next free one if the key is new.
+     *
+     * @param key the key
+     *
+     * @return the id
+     */
+    public int idOf(final T key) {
+        if (!(key instanceof LibraryEntry entry)) {
+            return resolve(key);
+        }
+        int slot = entry.getId();
+        if (slot < cachedEntries.length && cachedEntries[slot] == entry) {
+            return cachedIds[slot];
+        }
+        int id = resolve(key);
+        if (slot >= cachedEntries.length) {
+            int capacity = Math.max(slot + 1, cachedEntries.length * 2);
+            cachedEntries = Arrays.copyOf(cachedEntries, capacity);
+            cachedIds = Arrays.copyOf(cachedIds, capacity);
+        }
+        cachedEntries[slot] = entry;
+        cachedIds[slot] = id;
+        return id;
+    }
+
+    private int resolve(final T key) {
+        Object name = identity.apply(key);
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = keys.size();
+            ids.put(name, id);
+            keys.add(key);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the key with the given id.
+     *
+     * @param id the id
+     *
+     * @return the key
+     */
+    public T keyOf(final int id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        ids.clear();
+        keys.clear();
+        cachedEntries = new LibraryEntry[0];
+        cachedIds = new int[0];
+    }
+}
@@ -0,0 +1,134 @@
+package app.audio;
+
+import app.audio.Collections.Album;
+import app.audio.Files.Episode;
+import app.audio.Files.Song;
+import app.user.User;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The type Listen keys.
+ * Holds the ids shared by the listening data of every user, so that each user only keeps
+ * primitive counters indexed by those ids.
+ * Songs are told apart by name and artist and episodes by name, so the listens of entries
+ * named alike add up, as they did when the entries compared equal by name. Each entry is
+ * matched by name once, its id is then read back by the id of the entry.
+ * The ids a listen of a song counts under, for the song, its artist, its genre and its
+ * album, are resolved on the first listen and kept by the id of the song until a user or
+ * an album is added or removed, which may change the artist or album a song resolves to.
+ */
+public final class ListenKeys {
+    private final KeyTable<Song> songs = new KeyTable<>(song -> List.of(song.getName(),
+            song.getArtist()));
+    private final KeyTable<Episode> episodes = new KeyTable<>(Episode::getName);
+    private final KeyTable<Album> albums = new KeyTable<>();
+    private final KeyTable<String> albumNames = new KeyTable<>();
+    private final KeyTable<User> artists = new KeyTable<>();
+    private final KeyTable<String> genres = new KeyTable<>();
+    private SongListen[] listens = new SongListen[0];
+    private int generation;
+
+    /**
+     * The ids a listen of a song counts under.
+     *
+     * @param song       the song
+     * @param generation the generation of the users and albums the ids were resolved in
+     * @param songId     the id of the song
+     * @param artistId   the id of the artist
+     * @param genreId    the id of the genre
+     * @param albumName  the id of the name of the album
+     * @param albumId    the id of the album
+     */
+    public record SongListen(Song song, int generation, int songId, int artistId, int genreId,
+                             int albumName, int albumId) {
+    }
+
+    public KeyTable<Song> getSongs() {
+        return songs;
+    }
+
+    public KeyTable<Episode> getEpisodes() {
+        return episodes;
+    }
+
+    public KeyTable<Album> getAlbums() {
+        return albums;
+    }
+
+    public KeyTable<String> getAlbumNames() {
+        return albumNames;
+    }
+
+    public KeyTable<User> getArtists() {
+        return artists;
+    }
+
+    public KeyTable<String> getGenres() {
+        return genres;
+    }
+
+    /**
+     * Gets the ids a listen of a song counts under, if they were resolved since the users
+     * and albums last changed.
+     *
+     * @param song the song
+     *
+     * @return the ids, or null if they have to be resolved again
+     */
+    public SongListen listenOf(final Song song) {
+        int slot = song.getId();
+        if (slot >= listens.length) {
+            return null;
+        }
+        SongListen listen = listens[slot];
+        return listen != null && listen.song() == song && listen.generation() == generation
+                ? listen : null;
+    }
+
+    /**
+     * Keeps the ids a listen of a song counts under, for the next listens of the song.
+     *
+     * @param song      the song
+     * @param songId    the id of the song
+     * @param artistId  the id of the artist
+     * @param genreId   the id of the genre
+     * @param albumName the id of the name of the album
+     * @param albumId   the id of the album
+     *
+     * @return the ids
+     */
+    public SongListen keepListen(final Song song, final int songId, final int artistId,
+                                 final int genreId, final int albumName, final int albumId) {
+        int slot = song.getId();
+        if (slot >= listens.length) {
+            listens = Arrays.copyOf(listens, Math.max(slot + 1, listens.length * 2));
+        }
+        SongListen listen = new SongListen(song, generation, songId, artistId, genreId,
+                albumName, albumId);
+        listens[slot] = listen;
+        return listen;
+    }
+
+    /**
+     * Drops the ids kept for the listens of songs, after a user or an album was added or
+     * removed.
+     */
+    public void ownersChanged() {
+        generation++;
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        songs.clear();
+        episodes.clear();
+        albums.clear();
+        albumNames.clear();
+        artists.clear();
+        genres.clear();
+        listens = new SongListen[0];
+    }
+}
@@ -13,49 +13,82 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
 
+/**
+ * The type Listening data.
+ * Counters are kept per user as primitive tables indexed by the ids of the shared
+ * ListenKeys, and are turned back into maps only when they are read.
+ */
 public class ListeningData {
-    private Map<Song, Integer> songListenCounts = null;
-    private Map<String, Integer> albumListenCounts = null;
-    private Map<User, Integer> artistListenCounts = null;
-    private Map<Episode, Integer> episodeListenCounts = null;
-    private Map<String, Integer> genreListenCounts = null;
-    private Map<Album, Integer> albumByAuthorListen = null;
-    private Map<Song, Integer> songsListenAsPremium = null;
-    private Map<Song, Integer> songsListenAsFreeAd = null;
+    private IntCounter songListenCounts = null;
+    private IntCounter albumListenCounts = null;
+    private IntCounter artistListenCounts = null;
+    private IntCounter episodeListenCounts = null;
+    private IntCounter genreListenCounts = null;
+    private IntCounter albumByAuthorListen = null;
+    private IntCounter songsListenAsPremium = null;
+    private IntCounter songsListenAsFreeAd = null;
     private List<Object> songsListenForAd = null;
 
     public ListeningData() {
-        this.songListenCounts = new HashMap<>();
-        this.albumListenCounts = new HashMap<>();
-        this.artistListenCounts = new HashMap<>();
-        this.episodeListenCounts = new HashMap<>();
-        this.albumByAuthorListen = new HashMap<>();
-        this.genreListenCounts = new HashMap<>();
-        this.songsListenAsPremium = new HashMap<>();
-        this.songsListenAsFreeAd = new HashMap<>();
+        this.songListenCounts = new IntCounter();
+        this.albumListenCounts = new IntCounter();
+        this.artistListenCounts = new IntCounter();
+        this.episodeListenCounts = new IntCounter();
+        this.albumByAuthorListen = new IntCounter();
+        this.genreListenCounts = new IntCounter();
+        this.songsListenAsPremium = new IntCounter();
+        this.songsListenAsFreeAd = new IntCounter();
         this.songsListenForAd = new ArrayList<>();
     }
 
+    private static ListenKeys keys() {
+        return Admin.getInstance().getListenKeys();
+    }
+
+    private static <T> Map<T, Integer> toMap(final IntCounter counter, final KeyTable<T> table) {
+        Map<T, Integer> map = new HashMap<>();
+        for (int slot = 0; slot < counter.capacity(); slot++) {
+            if (counter.keyAt(slot) >= 0) {
+                map.put(table.keyOf(counter.keyAt(slot)), counter.countAt(slot));
+            }
+        }
+        return map;
+    }
+
     /**
      * Adds a song to the listen count and updates counts based on user type.
+     * The ids the listen counts under are resolved on the first listen of the song, see
+     * ListenKeys.listenOf, so the next listens only read them back.
      *
      * @param song The song to add to listen count.
      * @param isPremiumUser True if the user is a premium user, false otherwise.
      */
     public final void addSongListen(final Song song, final boolean isPremiumUser) {
-        songListenCounts.put(song, songListenCounts.getOrDefault(song, 0) + 1);
+        ListenKeys keys = keys();
+        ListenKeys.SongListen listen = keys.listenOf(song);
+        int songId = listen != null ? listen.songId() : keys.getSongs().idOf(song);
+        songListenCounts.increment(songId);
         if (isPremiumUser) {
-            songsListenAsPremium.put(song, songsListenAsPremium.getOrDefault(song, 0) + 1);
+            songsListenAsPremium.increment(songId);
         } else {
             songsListenForAd.add(song);
         }
 
-        User artist = Admin.getInstance().getUser(song.getArtist());
-        addArtistListen(artist);
-        addGenreListen(song.getGenre());
-        Album album = artist.getAlbum(song.getAlbum());
-        addAlbumListen(album.getName());
-        albumByAuthorListen.put(album, albumByAuthorListen.getOrDefault(album, 0) + 1);
+        if (listen == null) {
+            User artist = Admin.getInstance().getUser(song.getArtist());
+            int artistId = keys.getArtists().idOf(artist);
+            artistListenCounts.increment(artistId);
+            int genreId = keys.getGenres().idOf(song.getGenre());
+            genreListenCounts.increment(genreId);
+            Album album = artist.getAlbum(song.getAlbum());
+            listen = keys.keepListen(song, songId, artistId, genreId,
+                    keys.getAlbumNames().idOf(album.getName()), keys.getAlbums().idOf(album));
+        } else {
+            artistListenCounts.increment(listen.artistId());
+            genreListenCounts.increment(listen.genreId());
+        }
+        albumListenCounts.increment(listen.albumName());
+        albumByAuthorListen.increment(listen.albumId());
     }
 
     /**
@@ -64,7 +97,7 @@ public class ListeningData {
      * @param genre The genre to add to listen count.
      */
     public final void addGenreListen(final String genre) {
-        genreListenCounts.put(genre, genreListenCounts.getOrDefault(genre, 0) + 1);
+        genreListenCounts.increment(keys().getGenres().idOf(genre));
     }
 
     /**
@@ -73,7 +106,7 @@ public class ListeningData {
      * @param album The album to add to listen count.
      */
     public final void addAlbumListen(final String album) {
-        albumListenCounts.put(album, albumListenCounts.getOrDefault(album, 0) + 1);
+        albumListenCounts.increment(keys().getAlbumNames().idOf(album));
     }
 
     /**
@@ -82,7 +115,7 @@ public class ListeningData {
      * @param artist The artist to add to listen count.
      */
     public final void addArtistListen(final User artist) {
-        artistListenCounts.put(artist, artistListenCounts.getOrDefault(artist, 0) + 1);
+        artistListenCounts.increment(keys().getArtists().idOf(artist));
     }
 
     /**
@@ -91,7 +124,7 @@ public class ListeningData {
      * @param episode The episode to add to listen count.
      */
     public final void addEpisodeListen(final Episode episode) {
-        episodeListenCounts.put(episode, episodeListenCounts.getOrDefault(episode, 0) + 1);
+        episodeListenCounts.increment(keys().getEpisodes().idOf(episode));
     }
 
     /**
@@ -101,24 +134,8 @@ public class ListeningData {
      * @return Map of song names and their listen counts.
      */
     public final Map<String, Integer> getTopSongsListen(final int limit) {
-        Map<String, Integer> results = new LinkedHashMap<>();
-
-        List<Map.Entry<Song, Integer>> sortedList = songListenCounts.entrySet()
-                .stream()
-                .sorted(Map.Entry.<Song, Integer>comparingByValue(java.util.Comparator
-                                .reverseOrder())
-                        .thenComparing(entry -> entry.getKey().getName()))
-                .toList();
-
-        int i = 0;
-        for (Map.Entry<Song, Integer> song : sortedList) {
-            if (i >= limit) {
-                break;
-            }
-            results.put(song.getKey().getName(), song.getValue());
-            i++;
-        }
-        return results;
+        return TopSelector.select(songListenCounts,
+                id -> keys().getSongs().keyOf(id).getName(), limit);
     }
 
     /**
@@ -128,23 +145,7 @@ public class ListeningData {
      * @return Map of album names and their listen counts.
      */
     public final Map<String, Integer> getTopAlbumsListen(final int limit) {
-        Map<String, Integer> results = new LinkedHashMap<>();
-        List<Map.Entry<String, Integer>> sortedList = albumListenCounts.entrySet()
-                .stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue(java.util.Comparator.
-                                reverseOrder())
-                        .thenComparing(Map.Entry::getKey))
-                .toList();
-
-        int i = 0;
-        for (Map.Entry<String, Integer> album : sortedList) {
-            if (i >= limit) {
-                break;
-            }
-            results.put(album.getKey(), album.getValue());
-            i++;
-        }
-        return results;
+        return TopSelector.select(albumListenCounts, keys().getAlbumNames()::keyOf, limit);
     }
 
     /**
@@ -154,24 +155,10 @@ public class ListeningData {
      * @return Map of artist names and their listen counts.
      */
     public final Map<String, Integer> getTopArtistsListen(final int limit) {
-        Map<String, Integer> results = new LinkedHashMap<>();
-        List<Map.Entry<User, Integer>> sortedList = artistListenCounts.entrySet()
-                .stream()
-                .sorted(Map.Entry.<User, Integer>comparingByValue(java.util.Comparator
-                                .reverseOrder())
-                        .thenComparing(entry -> entry.getKey().getUsername()))
-                .toList();
-        int i = 0;
-        for (Map.Entry<User, Integer> user : sortedList) {
-            if (i >= limit) {
-                break;
-            }
-            if (user.getKey() != null) {
-                results.put(user.getKey().getUsername(), user.getValue());
-                i++;
-            }
-        }
-        return results;
+        return TopSelector.select(artistListenCounts, id -> {
+            User artist = keys().getArtists().keyOf(id);
+            return artist == null ? null : artist.getUsername();
+        }, limit);
     }
 
     /**
@@ -181,25 +168,8 @@ public class ListeningData {
      * @return Map of episode names and their listen counts.
      */
     public final Map<String, Integer> getTopEpisodesListen(final int limit) {
-        Map<String, Integer> results = new LinkedHashMap<>();
-        if (episodeListenCounts.isEmpty()) {
-            return results;
-        }
-        List<Map.Entry<Episode, Integer>> sortedList = episodeListenCounts.entrySet()
-                .stream()
-                .sorted(Map.Entry.<Episode, Integer>comparingByValue(java.util.Comparator
-                                .reverseOrder())
-                        .thenComparing(entry -> entry.getKey().getName()))
-                .toList();
-        int i = 0;
-        for (Map.Entry<Episode, Integer> episode : sortedList) {
-            if (i >= limit) {
-                break;
-            }
-            results.put(episode.getKey().getName(), episode.getValue());
-            i++;
-        }
-        return results;
+        return TopSelector.select(episodeListenCounts,
+                id -> keys().getEpisodes().keyOf(id).getName(), limit);
     }
 
     /**
@@ -209,26 +179,7 @@ public class ListeningData {
      * @return Map of genre names and their listen counts.
      */
     public final Map<String, Integer> getTopGenreListen(final int limit) {
-        Map<String, Integer> results = new LinkedHashMap<>();
-        if (genreListenCounts.isEmpty()) {
-            return results;
-        }
-        List<Map.Entry<String, Integer>> sortedList = genreListenCounts.entrySet()
-                .stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue(java.util.Comparator
-                                .reverseOrder())
-                        .thenComparing(Map.Entry::getKey))
-                .toList();
-        int i = 0;
-        for (Map.Entry<String, Integer> genre : sortedList) {
-            if (i >= limit) {
-                break;
-            }
-            results.put(genre.getKey(), genre.getValue());
-            i++;
-        }
-
-        return results;
+        return TopSelector.select(genreListenCounts, keys().getGenres()::keyOf, limit);
     }
 
     /**
@@ -239,9 +190,13 @@ public class ListeningData {
      */
     public final Map<Song, Integer> getSongsListenFromArtist(final User artist) {
         Map<Song, Integer> results = new LinkedHashMap<>();
-        for (Song song : songListenCounts.keySet()) {
+        for (int slot = 0; slot < songListenCounts.capacity(); slot++) {
+            if (songListenCounts.keyAt(slot) < 0) {
+                continue;
+            }
+            Song song = keys().getSongs().keyOf(songListenCounts.keyAt(slot));
             if (song.getArtist().equals(artist.getUsername())) {
-                results.put(song, songListenCounts.get(song));
+                results.put(song, songListenCounts.countAt(slot));
             }
         }
         return results;
@@ -255,9 +210,13 @@ public class ListeningData {
      */
     public final Map<Episode, Integer> getEpisodesListenFromArtist(final User artist) {
         Map<Episode, Integer> results = new LinkedHashMap<>();
-        for (Episode episode : episodeListenCounts.keySet()) {
+        for (int slot = 0; slot < episodeListenCounts.capacity(); slot++) {
+            if (episodeListenCounts.keyAt(slot) < 0) {
+                continue;
+            }
+            Episode episode = keys().getEpisodes().keyOf(episodeListenCounts.keyAt(slot));
             if (episode.getPodcast().getOwner().equals(artist.getUsername())) {
-                results.put(episode, episodeListenCounts.get(episode));
+                results.put(episode, episodeListenCounts.countAt(slot));
             }
         }
         return results;
@@ -272,9 +231,13 @@ public class ListeningData {
     public final Map<String, Integer> getAlbumsListenFromArtist(final User artist) {
         Map<String, Integer> results = new LinkedHashMap<>();
         List<String> albums = artist.getAlbumsName();
-        for (Album album : albumByAuthorListen.keySet()) {
+        for (int slot = 0; slot < albumByAuthorListen.capacity(); slot++) {
+            if (albumByAuthorListen.keyAt(slot) < 0) {
+                continue;
+            }
+            Album album = keys().getAlbums().keyOf(albumByAuthorListen.keyAt(slot));
             if (albums.contains(album.getName()) && album.getOwner().equals(artist.getUsername())) {
-                results.put(album.getName(), albumByAuthorListen.get(album));
+                results.put(album.getName(), albumByAuthorListen.countAt(slot));
             }
         }
         return results;
@@ -287,10 +250,14 @@ public class ListeningData {
      * @return Total number of listens.
      */
     public final Integer getListenFromArtist(final User artist) {
-        Integer result = 0;
-        for (Song song : songListenCounts.keySet()) {
+        int result = 0;
+        for (int slot = 0; slot < songListenCounts.capacity(); slot++) {
+            if (songListenCounts.keyAt(slot) < 0) {
+                continue;
+            }
+            Song song = keys().getSongs().keyOf(songListenCounts.keyAt(slot));
             if (song.getArtist().equals(artist.getUsername())) {
-                result += songListenCounts.get(song);
+                result += songListenCounts.countAt(slot);
             }
         }
         return result;
@@ -304,14 +271,18 @@ public class ListeningData {
      */
     public final boolean listenArtist(final User artist) {
         if (artist.getUserType() == Enums.UserType.ARTIST) {
-            for (Song song : songListenCounts.keySet()) {
-                if (song.getArtist().equals(artist.getUsername())) {
+            for (int slot = 0; slot < songListenCounts.capacity(); slot++) {
+                if (songListenCounts.keyAt(slot) >= 0 && keys().getSongs()
+                        .keyOf(songListenCounts.keyAt(slot)).getArtist()
+                        .equals(artist.getUsername())) {
                     return true;
                 }
             }
         } else if (artist.getUserType() == Enums.UserType.HOST) {
-            for (Episode episode : episodeListenCounts.keySet()) {
-                if (episode.getPodcast().getOwner().equals(artist.getUsername())) {
+            for (int slot = 0; slot < episodeListenCounts.capacity(); slot++) {
+                if (episodeListenCounts.keyAt(slot) >= 0 && keys().getEpisodes()
+                        .keyOf(episodeListenCounts.keyAt(slot)).getPodcast().getOwner()
+                        .equals(artist.getUsername())) {
                     return true;
                 }
             }
@@ -369,15 +340,15 @@ public class ListeningData {
      * @param song The song to add to the listen count for free ad listens.
      */
     public final void addSongListenAsFreeAd(final Song song) {
-        songsListenAsFreeAd.put(song, songsListenAsFreeAd.getOrDefault(song, 0) + 1);
+        songsListenAsFreeAd.increment(keys().getSongs().idOf(song));
     }
 
     public final Map<Song, Integer> getSongsListenAsPremium() {
-        return songsListenAsPremium;
+        return toMap(songsListenAsPremium, keys().getSongs());
     }
 
     public final Map<Song, Integer> getSongsListenAsFreeAd() {
-        return songsListenAsFreeAd;
+        return toMap(songsListenAsFreeAd, keys().getSongs());
     }
 
     public final List<Object> getSongsListenForAd() {
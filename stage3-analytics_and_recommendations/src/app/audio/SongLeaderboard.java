@@ -0,0 +1,100 @@
+package app.audio;
+
+import app.audio.Files.Song;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The type Song leaderboard.
+ * Keeps the songs of the library grouped by their number of likes, so that the most
+ * liked songs can be read without sorting the whole library.
+ * Songs with the same number of likes are kept in library order.
+ */
+public final class SongLeaderboard {
+    private final Map<Song, Long> positions = new IdentityHashMap<>();
+    private final TreeMap<Integer, TreeMap<Long, Song>> buckets =
+            new TreeMap<>(Comparator.reverseOrder());
+    private long nextPosition = 0;
+
+    /**
+     * Adds a song at the end of the library.
+     *
+     * @param song the song
+     */
+    public void add(final Song song) {
+        long position = nextPosition++;
+        positions.put(song, position);
+        buckets.computeIfAbsent(song.getLikes(), likes -> new TreeMap<>()).put(position, song);
+    }
+
+    /**
+     * Removes a song from the library.
+     *
+     * @param song the song
+     */
+    public void remove(final Song song) {
+        Long position = positions.remove(song);
+        if (position != null) {
+            removeFromBucket(song.getLikes(), position);
+        }
+    }
+
+    /**
+     * Moves a song to the bucket of its current number of likes.
+     *
+     * @param song          the song
+     * @param previousLikes the number of likes before the change
+     */
+    public void likesChanged(final Song song, final int previousLikes) {
+        Long position = positions.get(song);
+        if (position == null) {
+            return;
+        }
+        removeFromBucket(previousLikes, position);
+        buckets.computeIfAbsent(song.getLikes(), likes -> new TreeMap<>()).put(position, song);
+    }
+
+    /**
+     * Gets the most liked songs.
+     *
+     * @param limit the maximum number of songs
+     *
+     * @return the songs, ordered by likes and then by library order
+     */
+    public List<Song> getTop(final int limit) {
+        List<Song> top = new ArrayList<>();
+        for (TreeMap<Long, Song> bucket : buckets.values()) {
+            for (Song song : bucket.values()) {
+                if (top.size() >= limit) {
+                    return top;
+                }
+                top.add(song);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Clear.
+     */
+    public void clear() {
+        positions.clear();
+        buckets.clear();
+        nextPosition = 0;
+    }
+
+    private void removeFromBucket(final int likes, final long position) {
+        TreeMap<Long, Song> bucket = buckets.get(likes);
+        if (bucket != null) {
+            bucket.remove(position);
+            if (bucket.isEmpty()) {
+                buckets.remove(likes);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package app.audio;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * The type Top selector.
+ * Picks the most counted keys of an IntCounter with a heap bounded by the number of keys
+ * wanted, instead of sorting every key. Keys are ordered by decreasing count, then by
+ * name, the same order the wrapped statistics always used.
+ */
+public final class TopSelector {
+    private TopSelector() {
+    }
+
+    /**
+     * Selects the most counted keys.
+     * Keys whose name is null are skipped.
+     *
+     * @param counter the counter
+     * @param names   gives the name of a key
+     * @param limit   the maximum number of keys
+     *
+     * @return map of names and their counts, best first
+     */
+    public static Map<String, Integer> select(final IntCounter counter,
+                                              final IntFunction<String> names,
+                                              final int limit) {
+        Map<String, Integer> results = new LinkedHashMap<>();
+        if (limit <= 0) {
+            return results;
+        }
+
+        int[] heapCounts = new int[Math.min(limit, counter.size())];
+        String[] heapNames = new String[heapCounts.length];
+        int size = 0;
+        for (int slot = 0; slot < counter.capacity(); slot++) {
+            if (counter.keyAt(slot) < 0) {
+                continue;
+            }
+            String name = names.apply(counter.keyAt(slot));
+            if (name == null) {
+                continue;
+            }
+            int count = counter.countAt(slot);
+            if (size < heapCounts.length) {
+                heapCounts[size] = count;
+                heapNames[size] = name;
+                siftUp(heapCounts, heapNames, size++);
+            } else if (size > 0 && worse(heapCounts[0], heapNames[0], count, name)) {
+                heapCounts[0] = count;
+                heapNames[0] = name;
+                siftDown(heapCounts, heapNames, 0, size);
+            }
+        }
+
+        // Popping the worst key each time fills the array from the back, best key first.
+        for (int end = size - 1; end > 0; end--) {
+            swap(heapCounts, heapNames, 0, end);
+            siftDown(heapCounts, heapNames, 0, end);
+        }
+        for (int i = 0; i < size; i++) {
+            results.put(heapNames[i], heapCounts[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Checks whether the first key ranks below the second one.
+     */
+    private static boolean worse(final int count, final String name,
+                                 final int otherCount, final String otherName) {
+        if (count != otherCount) {
+            return count < otherCount;
+        }
+        return name.compareTo(otherName) > 0;
+    }
+
+    private static void siftUp(final int[] counts, final String[] names, final int index) {
+        int child = index;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (!worse(counts[child], names[child], counts[parent], names[parent])) {
+                return;
+            }
+            swap(counts, names, child, parent);
+            child = parent;
+        }
+    }
+
+    private static void siftDown(final int[] counts, final String[] names,
+                                 final int index, final int size) {
+        int parent = index;
+        while (true) {
+            int worst = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && worse(counts[left], names[left], counts[worst], names[worst])) {
+                worst = left;
+            }
+            if (right < size && worse(counts[right], names[right], counts[worst], names[worst])) {
+                worst = right;
+            }
+            if (worst == parent) {
+                return;
+            }
+            swap(counts, names, parent, worst);
+            parent = worst;
+        }
+    }
+
+    private static void swap(final int[] counts, final String[] names, final int i, final int j) {
+        int count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        String name = names[i];
+        names[i] = names[j];
+        names[j] = name;
+    }
+}
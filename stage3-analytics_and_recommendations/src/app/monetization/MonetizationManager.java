@@ -18,7 +18,8 @@ import java.util.Map;
 public final class MonetizationManager {
     private Map<User, MonetizationStats> artistMonetizationMap = null;
     private Map<User, List<Merch>> userMerches = null;
-    private static final MonetizationManager instance = new MonetizationManager();
+    private static final ThreadLocal<MonetizationManager> instance =
+            ThreadLocal.withInitial(MonetizationManager::new);
 
     private MonetizationManager() {
         artistMonetizationMap = new HashMap<>();
@@ -160,8 +161,13 @@ public final class MonetizationManager {
         userMerches.clear();
     }
 
+    /**
+     * Gets the instance used by the current thread, the same way Admin does.
+     *
+     * @return the instance
+     */
     public static MonetizationManager getInstance() {
-        return instance;
+        return instance.get();
     }
 
 }
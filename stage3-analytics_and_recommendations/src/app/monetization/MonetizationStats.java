@@ -1,10 +1,12 @@
 package app.monetization;
 
+import app.Admin;
 import app.audio.Collections.Merch;
 import app.audio.Files.Song;
+import app.audio.KeyTable;
 
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class MonetizationStats {
@@ -12,7 +14,7 @@ public class MonetizationStats {
 
     private double songRevenue;
     private double merchRevenue;
-    private Map<Song, Double> songsRevenue = null;
+    private Map<Integer, Double> songsRevenue = null;
 
     public MonetizationStats() {
         this.songRevenue = 0.0;
@@ -23,16 +25,16 @@ public class MonetizationStats {
     /**
      * Adds revenue to a specific song and updates the total song revenue.
      * This method updates both the individual song's revenue and the cumulative revenue
-     * from all songs.
+     * from all songs. Songs are kept by their id in the listen keys, so the revenue of songs
+     * named alike adds up.
      *
      * @param song The song for which revenue is being added.
      * @param revenue The amount of revenue generated by the song.
      */
     public final void addSongRevenue(final Song song, final double revenue) {
-        Double v = songsRevenue.getOrDefault(song, 0.0);
-        v += revenue;
         songRevenue += revenue;
-        songsRevenue.put(song, v);
+        songsRevenue.merge(Admin.getInstance().getListenKeys().getSongs().idOf(song), revenue,
+                Double::sum);
     }
 
     /**
@@ -57,17 +59,16 @@ public class MonetizationStats {
         if (songsRevenue.isEmpty()) {
             return "N/A";
         }
-        List<Map.Entry<Song, Double>> sortedList = songsRevenue.entrySet()
+        KeyTable<Song> songs = Admin.getInstance().getListenKeys().getSongs();
+        Map.Entry<Integer, Double> first = songsRevenue.entrySet()
                 .stream()
-                .sorted(Map.Entry.<Song, Double>comparingByValue(java.util.Comparator
-                                .reverseOrder())
-                        .thenComparing(entry -> entry.getKey().getName()))
-                .toList();
-        Map.Entry<Song, Double> first = sortedList.get(0);
+                .min(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(entry -> songs.keyOf(entry.getKey()).getName()))
+                .orElseThrow();
         if (first.getValue() == 0.0) {
             return "N/A";
         }
-        return first.getKey().getName();
+        return songs.keyOf(first.getKey()).getName();
     }
 
     public final double getSongRevenue() {